@@ -2,25 +2,90 @@ package dojo.supermarket.model;
 
 public class Discount {
 
-    private final String description;
-    private final double discountAmount;
+    private static final int NO_TEMPLATE = -1;
+
+    private String description;
+    private final int descriptionId;
+    private final double argument;
+    private final long discountMinorUnits;
     private final Product product;
+    private final DiscountKind kind;
 
     public Discount(Product product, String description, double discountAmount) {
+        this(product, description, Money.toMinorUnits(discountAmount), DiscountKind.OTHER);
+    }
+
+    public Discount(Product product, String description, Money discountAmount) {
+        this(product, description, discountAmount.getMinorUnits(), DiscountKind.OTHER);
+    }
+
+    public Discount(Product product, String description, Money discountAmount, DiscountKind kind) {
+        this(product, description, discountAmount.getMinorUnits(), kind);
+    }
+
+    private Discount(Product product, String description, long discountMinorUnits, DiscountKind kind) {
         this.product = product;
         this.description = description;
-        this.discountAmount = discountAmount;
+        this.descriptionId = NO_TEMPLATE;
+        this.argument = 0;
+        this.discountMinorUnits = discountMinorUnits;
+        this.kind = kind;
+    }
+
+    private Discount(Product product, int descriptionId, double argument, long discountMinorUnits) {
+        this.product = product;
+        this.descriptionId = descriptionId;
+        this.argument = argument;
+        this.discountMinorUnits = discountMinorUnits;
+        this.kind = DiscountDescriptions.kindOf(descriptionId);
+    }
+
+    /**
+     * Creates a discount from an amount already computed in minor units, without intermediate objects.
+     */
+    public static Discount ofMinorUnits(Product product, String description, long discountMinorUnits) {
+        return new Discount(product, description, discountMinorUnits, DiscountKind.OTHER);
+    }
+
+    public static Discount ofMinorUnits(Product product, String description, long discountMinorUnits,
+                                        DiscountKind kind) {
+        return new Discount(product, description, discountMinorUnits, kind);
+    }
+
+    /**
+     * Creates a discount whose description is formatted from a {@link DiscountDescriptions} template when first read.
+     */
+    public static Discount described(Product product, int descriptionId, double argument, long discountMinorUnits) {
+        return new Discount(product, descriptionId, argument, discountMinorUnits);
     }
 
     public String getDescription() {
-        return description;
+        // Formatting twice under a race is harmless; both threads build the same text
+        String text = description;
+        if (text == null && descriptionId != NO_TEMPLATE) {
+            text = DiscountDescriptions.format(descriptionId, argument);
+            description = text;
+        }
+        return text;
     }
 
     public double getDiscountAmount() {
-        return discountAmount;
+        return Money.toDouble(discountMinorUnits);
+    }
+
+    public Money getAmount() {
+        return Money.ofMinorUnits(discountMinorUnits);
+    }
+
+    public long getDiscountMinorUnits() {
+        return discountMinorUnits;
     }
 
     public Product getProduct() {
         return product;
     }
+
+    public DiscountKind getKind() {
+        return kind;
+    }
 }
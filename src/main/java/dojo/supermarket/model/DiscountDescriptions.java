@@ -0,0 +1,105 @@
+package dojo.supermarket.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleFunction;
+
+/**
+ * Registry of discount description templates, referred to by id while a checkout runs.
+ *
+ * A rule registers its template once, then emits discounts as a description id plus the numeric
+ * argument to fill in, such as the price in "2 for 0.99". The text is only built when a receipt
+ * is rendered, so pricing a cart never concatenates strings.
+ *
+ * Registering the same template again returns the id it already has, so the registry only grows
+ * with the number of distinct templates. Templates are compared by kind and key: the text for
+ * fixed descriptions, a caller-chosen key such as a tier name, or else the format function itself.
+ */
+public final class DiscountDescriptions {
+
+    private static final Object LOCK = new Object();
+    // Guarded by LOCK
+    private static final Map<List<Object>, Integer> IDS = new HashMap<>();
+    // Slots below count are never rewritten; readers check count first, so they never see an empty slot
+    private static volatile Template[] templates = new Template[16];
+    private static volatile int count;
+
+    private DiscountDescriptions() {
+    }
+
+    /**
+     * Registers a template and returns its id. Discounts emitted under the id are of the given kind.
+     * Registering the same function instance again returns the same id.
+     */
+    public static int register(DiscountKind kind, DoubleFunction<String> format) {
+        return register(List.of(kind, format), kind, format);
+    }
+
+    /**
+     * Registers a template under a key, returning the id already registered for the kind and key if there is one.
+     */
+    public static int register(DiscountKind kind, String key, DoubleFunction<String> format) {
+        return register(List.of(kind, key), kind, format);
+    }
+
+    /**
+     * Registers a description that does not depend on the argument.
+     */
+    public static int register(DiscountKind kind, String text) {
+        return register(kind, text, argument -> text);
+    }
+
+    private static int register(List<Object> key, DiscountKind kind, DoubleFunction<String> format) {
+        synchronized (LOCK) {
+            Integer existing = IDS.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            int id = count;
+            Template[] current = templates;
+            if (id == current.length) {
+                current = Arrays.copyOf(current, id * 2);
+                templates = current;
+            }
+            current[id] = new Template(kind, format);
+            count = id + 1;
+            IDS.put(key, id);
+            return id;
+        }
+    }
+
+    /**
+     * Gets the number of distinct templates registered.
+     */
+    public static int size() {
+        return count;
+    }
+
+    public static String format(int id, double argument) {
+        return template(id).format.apply(argument);
+    }
+
+    public static DiscountKind kindOf(int id) {
+        return template(id).kind;
+    }
+
+    private static Template template(int id) {
+        int registered = count;
+        if (id < 0 || id >= registered) {
+            throw new IllegalArgumentException("Unknown discount description: " + id);
+        }
+        return templates[id];
+    }
+
+    private static final class Template {
+        final DiscountKind kind;
+        final DoubleFunction<String> format;
+
+        Template(DiscountKind kind, DoubleFunction<String> format) {
+            this.kind = kind;
+            this.format = format;
+        }
+    }
+}
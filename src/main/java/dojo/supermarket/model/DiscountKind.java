@@ -0,0 +1,11 @@
+package dojo.supermarket.model;
+
+/**
+ * The kind of pricing rule a discount comes from, used to break down receipt totals.
+ */
+public enum DiscountKind {
+    OFFER,
+    BUNDLE,
+    LOYALTY,
+    OTHER
+}
@@ -0,0 +1,24 @@
+package dojo.supermarket.model;
+
+/**
+ * Receives discounts as plain values, so a rule can report one without building a {@link Discount}.
+ * A {@link Receipt} is a sink: emitted discounts are stored in its arrays and only become
+ * {@code Discount} objects, with their descriptions formatted, when the receipt is read.
+ */
+public interface DiscountSink {
+
+    /**
+     * Accepts a discount on a product.
+     *
+     * @param product the product the discount is shown against
+     * @param amountMinorUnits the discount in minor units, negative as it reduces the total
+     * @param descriptionId the id of the description template in {@link DiscountDescriptions}
+     * @param argument the value the template fills in
+     */
+    void accept(Product product, long amountMinorUnits, int descriptionId, double argument);
+
+    /**
+     * Accepts a discount that has already been built, from rules that do not emit plain values.
+     */
+    void addDiscount(Discount discount);
+}
@@ -0,0 +1,106 @@
+package dojo.supermarket.model;
+
+/**
+ * Exact amount of money held as a whole number of minor units (cents).
+ *
+ * Final, immutable and compared by value only, so it can become a value class without API changes.
+ * Hot paths do their arithmetic on the raw {@code long} through the static helpers and only wrap
+ * the result at the edges.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int MINOR_UNITS_PER_MAJOR = 100;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinorUnits(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Converts a decimal amount such as a catalog price, rounding half-even to the nearest cent.
+     */
+    public static Money of(double amount) {
+        return ofMinorUnits(toMinorUnits(amount));
+    }
+
+    /**
+     * Rounds a decimal amount half-even to the nearest whole minor unit.
+     */
+    public static long toMinorUnits(double amount) {
+        return (long) Math.rint(amount * MINOR_UNITS_PER_MAJOR);
+    }
+
+    public static double toDouble(long minorUnits) {
+        return minorUnits / (double) MINOR_UNITS_PER_MAJOR;
+    }
+
+    /**
+     * Takes a percentage of an amount in minor units, rounding half-even to the nearest minor unit.
+     */
+    public static long percentage(long minorUnits, double percent) {
+        return (long) Math.rint(minorUnits * percent / 100.0);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public double toDouble() {
+        return toDouble(minorUnits);
+    }
+
+    public Money plus(Money other) {
+        return ofMinorUnits(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinorUnits(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return ofMinorUnits(Math.negateExact(minorUnits));
+    }
+
+    public Money times(long factor) {
+        return ofMinorUnits(Math.multiplyExact(minorUnits, factor));
+    }
+
+    public Money percentage(double percent) {
+        return ofMinorUnits(percentage(minorUnits, percent));
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money)) return false;
+        return minorUnits == ((Money) o).minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        long abs = Math.abs(minorUnits);
+        String cents = String.valueOf(abs % MINOR_UNITS_PER_MAJOR);
+        return (minorUnits < 0 ? "-" : "") + abs / MINOR_UNITS_PER_MAJOR + "." + (cents.length() == 1 ? "0" + cents : cents);
+    }
+}
@@ -2,9 +2,9 @@ package dojo.supermarket.model;
 
 public class Offer {
 
-    SpecialOfferType offerType;
+    final SpecialOfferType offerType;
     private final Product product;
-    double argument;
+    final double argument;
 
     public Offer(SpecialOfferType offerType, Product product, double argument) {
         this.offerType = offerType;
@@ -12,7 +12,15 @@ public class Offer {
         this.product = product;
     }
 
-    Product getProduct() {
+    public Product getProduct() {
         return product;
     }
+
+    public SpecialOfferType getOfferType() {
+        return offerType;
+    }
+
+    public double getArgument() {
+        return argument;
+    }
 }
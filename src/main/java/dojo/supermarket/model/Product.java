@@ -8,17 +8,23 @@ public class Product {
     private final String name;
     private final ProductUnit unit;
     private ProductCategory category;
+    private final int id;
+    private final int hash;
 
     public Product(String name, ProductUnit unit) {
-        this.name = name;
-        this.unit = unit;
-        this.category = new StandardCategory(); // Default category
+        this(name, unit, new StandardCategory()); // Default category
     }
 
     public Product(String name, ProductUnit unit, ProductCategory category) {
+        this(name, unit, category, -1);
+    }
+
+    Product(String name, ProductUnit unit, ProductCategory category, int id) {
         this.name = name;
         this.unit = unit;
         this.category = category;
+        this.id = id;
+        this.hash = 31 * (31 + Objects.hashCode(name)) + Objects.hashCode(unit);
     }
 
     public String getName() {
@@ -37,17 +43,27 @@ public class Product {
         this.category = category;
     }
 
+    /**
+     * Gets the id assigned by a {@link ProductRegistry}, or -1 if this product was not interned.
+     */
+    public int getId() {
+        return id;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Product)) return false;
         Product product = (Product) o;
-        return Objects.equals(name, product.name) &&
+        // Ids are unique, so a shared id settles it; anything else is compared by name and unit
+        if (id >= 0 && id == product.id) return true;
+        return hash == product.hash &&
+                Objects.equals(name, product.name) &&
                 unit == product.unit;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, unit);
+        return hash;
     }
 }
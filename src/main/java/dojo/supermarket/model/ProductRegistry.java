@@ -0,0 +1,69 @@
+package dojo.supermarket.model;
+
+import dojo.supermarket.model.category.StandardCategory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns products so that every name and unit maps to one canonical {@link Product} instance.
+ * Canonical products carry a stable int id and a precomputed hash, so map lookups on the
+ * checkout path settle equality with a reference check instead of comparing names.
+ *
+ * Ids are unique across all registries in the JVM. Products from different registries still
+ * compare equal by name and unit, but only a store node sharing one registry gets the fast path.
+ * Safe for concurrent use by many lanes.
+ */
+public class ProductRegistry {
+
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    private final Map<ProductUnit, ConcurrentHashMap<String, Product>> products = new EnumMap<>(ProductUnit.class);
+
+    public ProductRegistry() {
+        for (ProductUnit unit : ProductUnit.values()) {
+            products.put(unit, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Gets the canonical product for a name and unit, creating it in the standard category if needed.
+     */
+    public Product intern(String name, ProductUnit unit) {
+        Product existing = lookup(name, unit);
+        return existing != null ? existing : intern(name, unit, new StandardCategory());
+    }
+
+    /**
+     * Gets the canonical product for a name and unit, creating it in the given category if needed.
+     * An existing canonical product keeps the category it was first interned with.
+     */
+    public Product intern(String name, ProductUnit unit, ProductCategory category) {
+        return products.get(unit).computeIfAbsent(name,
+            key -> new Product(key, unit, category, nextId.getAndIncrement()));
+    }
+
+    /**
+     * Gets the canonical instance equal to the given product, interning it if needed.
+     */
+    public Product intern(Product product) {
+        return intern(product.getName(), product.getUnit(), product.getCategory());
+    }
+
+    /**
+     * Gets the canonical product for a name and unit, or null if it has not been interned.
+     */
+    public Product lookup(String name, ProductUnit unit) {
+        return products.get(unit).get(name);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, Product> byName : products.values()) {
+            size += byName.size();
+        }
+        return size;
+    }
+}
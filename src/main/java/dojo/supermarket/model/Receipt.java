@@ -1,38 +1,152 @@
 package dojo.supermarket.model;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class Receipt {
+/**
+ * Items and discounts of one checkout.
+ * Totals are kept up to date as lines are added, so reading any of them is O(1).
+ *
+ * The receipt is the {@link DiscountSink} its checkout emits discounts into. Emitted discounts are kept
+ * as plain values in parallel arrays and only become {@link Discount} objects when they are read.
+ */
+public class Receipt implements DiscountSink {
+
+    private static final int INITIAL_DISCOUNTS = 4;
 
     private final List<ReceiptItem> items = new ArrayList<>();
-    private final List<Discount> discounts = new ArrayList<>();
+    private Discount[] discounts;
+    private Product[] discountProducts;
+    private long[] discountAmounts;
+    private int[] discountDescriptions;
+    private double[] discountArguments;
+    private int discountCount;
+    private final Map<String, long[]> categoryTotals = new HashMap<>();
+    private final long[] discountTotals = new long[DiscountKind.values().length];
+    private long itemsTotal;
+    private long discountsTotal;
 
     public double getTotalPrice() {
-        double total = 0.0;
-        for (ReceiptItem item : items) {
-            total += item.getTotalPrice();
-        }
-        for (Discount discount : discounts) {
-            total += discount.getDiscountAmount();
-        }
-        return total;
+        return Money.toDouble(itemsTotal + discountsTotal);
+    }
+
+    /**
+     * Gets the exact total of all items and discounts.
+     */
+    public Money getTotal() {
+        return Money.ofMinorUnits(itemsTotal + discountsTotal);
+    }
+
+    /**
+     * Gets the total of all items before discounts.
+     */
+    public Money getItemsTotal() {
+        return Money.ofMinorUnits(itemsTotal);
+    }
+
+    /**
+     * Gets the total of all discounts, as a negative amount.
+     */
+    public Money getDiscountsTotal() {
+        return Money.ofMinorUnits(discountsTotal);
+    }
+
+    /**
+     * Gets the total of the items in a product category before discounts.
+     * The category is the one a product had when it was added.
+     */
+    public Money getCategoryTotal(String categoryName) {
+        long[] total = categoryTotals.get(categoryName);
+        return total != null ? Money.ofMinorUnits(total[0]) : Money.ZERO;
+    }
+
+    public Money getDiscountTotal(DiscountKind kind) {
+        return Money.ofMinorUnits(discountTotals[kind.ordinal()]);
     }
 
     public void addProduct(Product p, double quantity, double price, double totalPrice) {
-        items.add(new ReceiptItem(p, quantity, price, totalPrice));
+        ReceiptItem item = new ReceiptItem(p, quantity, price, totalPrice);
+        items.add(item);
+        itemsTotal += item.getTotalMinorUnits();
+        ProductCategory category = p.getCategory();
+        if (category != null) {
+            categoryTotals.computeIfAbsent(category.getCategoryName(), name -> new long[1])[0] += item.getTotalMinorUnits();
+        }
     }
 
     public List<ReceiptItem> getItems() {
         return Collections.unmodifiableList(items);
     }
 
+    @Override
     public void addDiscount(Discount discount) {
-        discounts.add(discount);
+        int slot = reserveDiscount();
+        discounts[slot] = discount;
+        discountsTotal += discount.getDiscountMinorUnits();
+        discountTotals[discount.getKind().ordinal()] += discount.getDiscountMinorUnits();
+    }
+
+    @Override
+    public void accept(Product product, long amountMinorUnits, int descriptionId, double argument) {
+        int slot = reserveDiscount();
+        discountProducts[slot] = product;
+        discountAmounts[slot] = amountMinorUnits;
+        discountDescriptions[slot] = descriptionId;
+        discountArguments[slot] = argument;
+        discountsTotal += amountMinorUnits;
+        discountTotals[DiscountDescriptions.kindOf(descriptionId).ordinal()] += amountMinorUnits;
     }
 
+    /**
+     * Gets the discounts in the order they were added. Emitted discounts are materialised on first read.
+     */
     public List<Discount> getDiscounts() {
-        return discounts;
+        return new AbstractList<>() {
+            @Override
+            public Discount get(int index) {
+                if (index < 0 || index >= discountCount) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return discount(index);
+            }
+
+            @Override
+            public int size() {
+                return discountCount;
+            }
+        };
+    }
+
+    private Discount discount(int slot) {
+        Discount discount = discounts[slot];
+        if (discount == null) {
+            discount = Discount.described(discountProducts[slot], discountDescriptions[slot],
+                discountArguments[slot], discountAmounts[slot]);
+            discounts[slot] = discount;
+        }
+        return discount;
+    }
+
+    private int reserveDiscount() {
+        if (discounts == null) {
+            discounts = new Discount[INITIAL_DISCOUNTS];
+            discountProducts = new Product[INITIAL_DISCOUNTS];
+            discountAmounts = new long[INITIAL_DISCOUNTS];
+            discountDescriptions = new int[INITIAL_DISCOUNTS];
+            discountArguments = new double[INITIAL_DISCOUNTS];
+        } else if (discountCount == discounts.length) {
+            int capacity = discountCount * 2;
+            discounts = Arrays.copyOf(discounts, capacity);
+            discountProducts = Arrays.copyOf(discountProducts, capacity);
+            discountAmounts = Arrays.copyOf(discountAmounts, capacity);
+            discountDescriptions = Arrays.copyOf(discountDescriptions, capacity);
+            discountArguments = Arrays.copyOf(discountArguments, capacity);
+        }
+        return discountCount++;
     }
 }
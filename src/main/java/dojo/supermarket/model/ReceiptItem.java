@@ -8,12 +8,14 @@ public class ReceiptItem {
     private final double price;
     private final double totalPrice;
     private final double quantity;
+    private final long totalMinorUnits;
 
     ReceiptItem(Product p, double quantity, double price, double totalPrice) {
         this.product = p;
         this.quantity = quantity;
         this.price = price;
         this.totalPrice = totalPrice;
+        this.totalMinorUnits = Money.toMinorUnits(totalPrice);
     }
 
     public double getPrice() {
@@ -32,6 +34,17 @@ public class ReceiptItem {
         return totalPrice;
     }
 
+    /**
+     * Gets the line total rounded to whole cents, as it counts towards the receipt total.
+     */
+    public Money getTotalAmount() {
+        return Money.ofMinorUnits(totalMinorUnits);
+    }
+
+    long getTotalMinorUnits() {
+        return totalMinorUnits;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,43 @@
+package dojo.supermarket.model;
+
+import java.time.Instant;
+
+/**
+ * A special offer that is only active from one instant (inclusive) until another (exclusive).
+ * While active it takes precedence over an always-on offer for the same product.
+ */
+public class ScheduledOffer {
+
+    private final Offer offer;
+    private final Instant from;
+    private final Instant until;
+
+    public ScheduledOffer(Offer offer, Instant from, Instant until) {
+        if (!from.isBefore(until)) {
+            throw new IllegalArgumentException("Offer must start before it ends: " + from + " - " + until);
+        }
+        this.offer = offer;
+        this.from = from;
+        this.until = until;
+    }
+
+    public Offer getOffer() {
+        return offer;
+    }
+
+    public Product getProduct() {
+        return offer.getProduct();
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public Instant getUntil() {
+        return until;
+    }
+
+    public boolean isActiveAt(Instant instant) {
+        return !instant.isBefore(from) && instant.isBefore(until);
+    }
+}
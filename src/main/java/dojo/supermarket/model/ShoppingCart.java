@@ -1,8 +1,5 @@
 package dojo.supermarket.model;
 
-import dojo.supermarket.model.offer.OfferStrategy;
-import dojo.supermarket.model.offer.OfferStrategyFactory;
-
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -11,10 +8,16 @@ import java.util.Map;
 
 public class ShoppingCart {
 
+    /**
+     * Customer id of a cart with no loyalty card presented.
+     */
+    public static final long ANONYMOUS = 0L;
+
     private final List<ProductQuantity> items = new ArrayList<>();
     private final Map<Product, Double> productQuantities = new HashMap<>();
+    private long customerId = ANONYMOUS;
 
-    List<ProductQuantity> getItems() {
+    public List<ProductQuantity> getItems() {
         return Collections.unmodifiableList(items);
     }
 
@@ -22,7 +25,7 @@ public class ShoppingCart {
         addItemQuantity(product, 1.0);
     }
 
-    Map<Product, Double> productQuantities() {
+    public Map<Product, Double> productQuantities() {
         return Collections.unmodifiableMap(productQuantities);
     }
 
@@ -35,21 +38,18 @@ public class ShoppingCart {
         }
     }
 
-    void handleOffers(Receipt receipt, Map<Product, Offer> offers, SupermarketCatalog catalog) {
-        for (Product p: productQuantities().keySet()) {
-            double quantity = productQuantities.get(p);
-            if (offers.containsKey(p)) {
-                Offer offer = offers.get(p);
-                double unitPrice = catalog.getUnitPrice(p);
-
-                // Use Strategy Pattern instead of if-else chain
-                OfferStrategy strategy = OfferStrategyFactory.getStrategy(offer.offerType);
-                Discount discount = strategy.calculateDiscount(p, quantity, unitPrice, offer.argument);
-
-                if (discount != null) {
-                    receipt.addDiscount(discount);
-                }
-            }
-        }
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Identifies the customer, typically from a scanned loyalty card, so the checkout can credit their points.
+     */
+    public void setCustomerId(long customerId) {
+        this.customerId = customerId;
+    }
+
+    public boolean hasCustomer() {
+        return customerId != ANONYMOUS;
     }
 }
@@ -1,8 +1,39 @@
 package dojo.supermarket.model;
 
+import java.util.List;
+
 public interface SupermarketCatalog {
 
     void addProduct(Product product, double price);
 
     double getUnitPrice(Product product);
+
+    /**
+     * Adds or re-prices several products at once; {@code prices[i]} belongs to {@code products.get(i)}.
+     * Catalogs override this to size their storage once or publish the whole load as one version.
+     */
+    default void addProducts(List<Product> products, double[] prices) {
+        for (int i = 0; i < products.size(); i++) {
+            addProduct(products.get(i), prices[i]);
+        }
+    }
+
+    /**
+     * Looks up the unit prices of several products at once, writing them to {@code out} in list order.
+     * Remote or disk-backed catalogs override this to resolve a whole basket in one round-trip.
+     */
+    default void getUnitPrices(List<Product> products, double[] out) {
+        for (int i = 0; i < products.size(); i++) {
+            out[i] = getUnitPrice(products.get(i));
+        }
+    }
+
+    /**
+     * Gets a view of the catalog that keeps returning the same prices for the duration of a checkout.
+     * Catalogs whose prices can be swapped while lanes are checking out override this;
+     * the default returns the catalog itself.
+     */
+    default SupermarketCatalog snapshot() {
+        return this;
+    }
 }
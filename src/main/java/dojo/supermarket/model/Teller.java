@@ -1,32 +1,117 @@
 package dojo.supermarket.model;
 
 import dojo.supermarket.model.bundle.BundleManager;
+import dojo.supermarket.model.bundle.MixAndMatchEngine;
+import dojo.supermarket.model.catalog.ResolvedPrices;
+import dojo.supermarket.model.checkout.BestDiscountStage;
+import dojo.supermarket.model.checkout.BundleStage;
+import dojo.supermarket.model.checkout.CheckoutContext;
+import dojo.supermarket.model.checkout.CheckoutPipeline;
+import dojo.supermarket.model.checkout.CheckoutSession;
+import dojo.supermarket.model.checkout.DiscountResolver;
+import dojo.supermarket.model.checkout.LoyaltyStage;
+import dojo.supermarket.model.checkout.MixAndMatchStage;
+import dojo.supermarket.model.checkout.OfferStage;
+import dojo.supermarket.model.checkout.PricingPlan;
+import dojo.supermarket.model.checkout.PricingStage;
+import dojo.supermarket.model.loyalty.LoyaltyLedger;
 import dojo.supermarket.model.loyalty.LoyaltyProgramManager;
+import dojo.supermarket.model.offer.OfferStrategyFactory;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
+/**
+ * Prices shopping carts. One instance can serve many checkout lanes concurrently:
+ * promotions may be edited at any time, and checkouts read them without locking.
+ */
 public class Teller {
 
     private final SupermarketCatalog catalog;
-    private final Map<Product, Offer> offers = new HashMap<>();
+    private final Map<Product, Offer> offers = new ConcurrentHashMap<>();
+    private final Map<Product, List<ScheduledOffer>> scheduledOffers = new ConcurrentHashMap<>();
     private final BundleManager bundleManager = new BundleManager();
+    private final MixAndMatchEngine mixAndMatchEngine = new MixAndMatchEngine();
     private final LoyaltyProgramManager loyaltyManager = new LoyaltyProgramManager();
-    private boolean loyaltyProgramEnabled = false;
+    private volatile boolean loyaltyProgramEnabled = false;
+    private volatile LoyaltyLedger loyaltyLedger;
+    private final AtomicLong offersVersion = new AtomicLong();
+    private volatile CheckoutPipeline pipeline;
+    private volatile PricingPlan pricingPlan = PricingPlan.EMPTY;
 
     public Teller(SupermarketCatalog catalog) {
         this.catalog = catalog;
+        this.pipeline = standardPipeline();
     }
 
     public void addSpecialOffer(SpecialOfferType offerType, Product product, double argument) {
         offers.put(product, new Offer(offerType, product, argument));
+        offersVersion.incrementAndGet();
+    }
+
+    public void removeSpecialOffer(Product product) {
+        offers.remove(product);
+        offersVersion.incrementAndGet();
+    }
+
+    /**
+     * Adds an offer that is active from one instant (inclusive) until another (exclusive).
+     * While active it takes precedence over the product's always-on offer; where scheduled offers
+     * for one product overlap, the one added last wins.
+     */
+    public void addScheduledOffer(SpecialOfferType offerType, Product product, double argument,
+                                  Instant from, Instant until) {
+        ScheduledOffer scheduled = new ScheduledOffer(new Offer(offerType, product, argument), from, until);
+        scheduledOffers.compute(product, (p, existing) -> {
+            List<ScheduledOffer> next = existing == null ? new ArrayList<>() : new ArrayList<>(existing);
+            next.add(scheduled);
+            return List.copyOf(next);
+        });
+        offersVersion.incrementAndGet();
+    }
+
+    public void removeScheduledOffers(Product product) {
+        scheduledOffers.remove(product);
+        offersVersion.incrementAndGet();
+    }
+
+    /**
+     * Gets the offers and bundles compiled into a per-product plan.
+     * The plan is recompiled by the first checkout after a rule changes, not on every checkout.
+     */
+    public PricingPlan getPricingPlan() {
+        // Sum of counters that only grow, so it changes whenever any rule source changes
+        long rulesVersion = offersVersion.get() + bundleManager.getVersion() + OfferStrategyFactory.getVersion();
+        PricingPlan plan = pricingPlan;
+        if (plan.getRulesVersion() != rulesVersion) {
+            // Versions are read before the rules, so a change made while compiling triggers another compile
+            List<ScheduledOffer> scheduled = new ArrayList<>();
+            scheduledOffers.values().forEach(scheduled::addAll);
+            plan = PricingPlan.compile(offers.values(), scheduled, bundleManager.getIndex(), rulesVersion);
+            pricingPlan = plan;
+        }
+        return plan;
     }
 
     public BundleManager getBundleManager() {
         return bundleManager;
     }
 
+    public MixAndMatchEngine getMixAndMatchEngine() {
+        return mixAndMatchEngine;
+    }
+
     public LoyaltyProgramManager getLoyaltyManager() {
         return loyaltyManager;
     }
@@ -39,37 +124,197 @@ public class Teller {
         this.loyaltyProgramEnabled = false;
     }
 
+    public LoyaltyLedger getLoyaltyLedger() {
+        return loyaltyLedger;
+    }
+
+    /**
+     * Credits points to the ledger for every checked-out cart that identifies its customer,
+     * or stops crediting points when given null. A checkout returns once its points are durable.
+     */
+    public void setLoyaltyLedger(LoyaltyLedger loyaltyLedger) {
+        this.loyaltyLedger = loyaltyLedger;
+    }
+
+    /**
+     * Gets the stages every checkout runs through, in order.
+     */
+    public CheckoutPipeline getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * Replaces the checkout stages, for example to add a new pricing rule.
+     * Checkouts already running finish with the pipeline they started with.
+     */
+    public void setPipeline(CheckoutPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Builds the standard pipeline: item pricing, special offers, bundles, mix-and-match, then loyalty.
+     */
+    public CheckoutPipeline defaultPipeline() {
+        return standardPipeline();
+    }
+
+    private CheckoutPipeline standardPipeline() {
+        return new CheckoutPipeline(List.of(
+            new PricingStage(),
+            new OfferStage(),
+            new BundleStage(bundleManager),
+            new MixAndMatchStage(mixAndMatchEngine),
+            new LoyaltyStage(loyaltyManager, () -> loyaltyProgramEnabled)));
+    }
+
+    /**
+     * Builds a pipeline that discounts each product by at most one offer, bundle or mix-and-match rule,
+     * choosing the combination that saves the customer the most. The exact search is cut short after
+     * the budget, falling back to the best combination found so far.
+     */
+    public CheckoutPipeline bestDiscountPipeline(Duration exactSearchBudget) {
+        return new CheckoutPipeline(List.of(
+            new PricingStage(),
+            new BestDiscountStage(bundleManager, mixAndMatchEngine, new DiscountResolver(exactSearchBudget)),
+            new LoyaltyStage(loyaltyManager, () -> loyaltyProgramEnabled)));
+    }
+
     public Receipt checksOutArticlesFrom(ShoppingCart theCart) {
-        Receipt receipt = new Receipt();
-        List<ProductQuantity> productQuantities = theCart.getItems();
-        for (ProductQuantity pq: productQuantities) {
-            Product p = pq.getProduct();
-            double quantity = pq.getQuantity();
-            double unitPrice = catalog.getUnitPrice(p);
-            double price = quantity * unitPrice;
-            receipt.addProduct(p, quantity, unitPrice, price);
+        return checksOutArticlesFrom(theCart, Instant.now());
+    }
+
+    /**
+     * Prices a cart with the offers that are active at the given transaction timestamp.
+     */
+    public Receipt checksOutArticlesFrom(ShoppingCart theCart, Instant at) {
+        // Pin one price version; the checkout resolves the cart against it with a single batch lookup
+        Receipt receipt = checkOut(theCart, catalog.snapshot(), getPricingPlan(), at);
+        awaitPoints(List.of(recordPurchase(theCart.getCustomerId(), receipt, at)));
+        return receipt;
+    }
+
+    /**
+     * Opens a checkout that is priced scan by scan, against the current prices and rules.
+     * Its receipt matches {@link #checksOutArticlesFrom} under the default pipeline, and finishing it
+     * credits an identified customer's points as a full checkout does.
+     */
+    public CheckoutSession openSession() {
+        return openSession(Instant.now());
+    }
+
+    public CheckoutSession openSession(Instant at) {
+        return new CheckoutSession(catalog.snapshot(), getPricingPlan(), at, bundleManager, mixAndMatchEngine,
+            loyaltyManager, () -> loyaltyProgramEnabled,
+            (receipt, customerId) -> awaitPoints(List.of(recordPurchase(customerId, receipt, at))));
+    }
+
+    /**
+     * Prices many carts in parallel on the common fork-join pool.
+     */
+    public List<Receipt> checkOutAll(Collection<ShoppingCart> carts) {
+        return checkOutAll(carts, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Prices many carts in parallel on the given pool and returns their receipts in iteration order.
+     * All carts are priced against one catalog version, and every distinct product across the batch
+     * is resolved with a single batch lookup shared by all carts.
+     * <p>
+     * Every cart is a completed purchase: identified customers are credited points and the purchase joins
+     * their rolling spend. All carts in the batch, including several for one customer, are priced and earn
+     * points on the rolling spend as it stood before the batch.
+     */
+    public List<Receipt> checkOutAll(Collection<ShoppingCart> carts, ForkJoinPool pool) {
+        List<ShoppingCart> ordered = new ArrayList<>(carts);
+        Instant at = Instant.now();
+        List<Receipt> receipts = priceAll(ordered, pool, at);
+
+        // Qualify every cart before any joins the rolling spend, matching the spend the batch was priced on
+        LoyaltyLedger ledger = loyaltyLedger;
+        long[] points = new long[receipts.size()];
+        for (int i = 0; i < receipts.size(); i++) {
+            points[i] = pointsFor(ledger, ordered.get(i).getCustomerId(), receipts.get(i), at);
         }
+        // Post every cart's points before waiting, so they share as few disk flushes as possible
+        List<CompletableFuture<Void>> postings = new ArrayList<>(receipts.size());
+        for (int i = 0; i < receipts.size(); i++) {
+            postings.add(credit(ledger, ordered.get(i).getCustomerId(), receipts.get(i), points[i], at));
+        }
+        awaitPoints(postings);
+        return receipts;
+    }
 
-        // Apply special offers
-        theCart.handleOffers(receipt, offers, catalog);
+    /**
+     * Re-prices many carts in parallel on the common fork-join pool, without crediting points or recording spend.
+     */
+    public List<Receipt> repriceAll(Collection<ShoppingCart> carts) {
+        return repriceAll(carts, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Prices many carts as {@link #checkOutAll(Collection, ForkJoinPool)} does, but as a quote rather than a
+     * purchase: no points are credited and no spend is recorded, so carts that were already checked out can be
+     * re-priced, for example by a nightly run against new offers.
+     */
+    public List<Receipt> repriceAll(Collection<ShoppingCart> carts, ForkJoinPool pool) {
+        return priceAll(new ArrayList<>(carts), pool, Instant.now());
+    }
 
-        // Apply bundle discounts
-        List<Discount> bundleDiscounts = bundleManager.calculateBundleDiscounts(
-            theCart.productQuantities(), catalog);
-        for (Discount discount : bundleDiscounts) {
-            receipt.addDiscount(discount);
+    private List<Receipt> priceAll(List<ShoppingCart> ordered, ForkJoinPool pool, Instant at) {
+        return pool.submit(() -> {
+            Set<Product> products = ordered.parallelStream()
+                .flatMap(cart -> cart.productQuantities().keySet().stream())
+                .collect(Collectors.toSet());
+            SupermarketCatalog prices = ResolvedPrices.resolve(catalog.snapshot(), products);
+            PricingPlan plan = getPricingPlan();
+            return ordered.parallelStream()
+                .map(cart -> checkOut(cart, prices, plan, at))
+                .toList();
+        }).join();
+    }
+
+    private Receipt checkOut(ShoppingCart theCart, SupermarketCatalog prices, PricingPlan plan, Instant at) {
+        return pipeline.run(new CheckoutContext(theCart, prices, plan, at));
+    }
+
+    /**
+     * Credits an identified customer's points and adds the purchase to their rolling spend.
+     * Points are earned on the amount paid, at the tier the purchase was priced at: the tier is qualified
+     * on the total before the loyalty discount, and before this purchase joins the rolling spend.
+     */
+    private CompletableFuture<Void> recordPurchase(long customerId, Receipt receipt, Instant at) {
+        LoyaltyLedger ledger = loyaltyLedger;
+        return credit(ledger, customerId, receipt, pointsFor(ledger, customerId, receipt, at), at);
+    }
+
+    private long pointsFor(LoyaltyLedger ledger, long customerId, Receipt receipt, Instant at) {
+        if (ledger == null || customerId == ShoppingCart.ANONYMOUS) {
+            return 0;
         }
+        Money qualifying = receipt.getTotal().minus(receipt.getDiscountTotal(DiscountKind.LOYALTY));
+        return loyaltyManager.calculatePoints(receipt.getTotal(), qualifying, customerId, at);
+    }
 
-        // Apply loyalty program discount only if enabled
-        if (loyaltyProgramEnabled && !receipt.getItems().isEmpty()) {
-            double subtotal = receipt.getTotalPrice();
-            Product representativeProduct = receipt.getItems().get(0).getProduct();
-            Discount loyaltyDiscount = loyaltyManager.calculateLoyaltyDiscount(subtotal, representativeProduct);
-            if (loyaltyDiscount != null) {
-                receipt.addDiscount(loyaltyDiscount);
-            }
+    private CompletableFuture<Void> credit(LoyaltyLedger ledger, long customerId, Receipt receipt, long points,
+                                           Instant at) {
+        if (customerId == ShoppingCart.ANONYMOUS) {
+            return CompletableFuture.completedFuture(null);
+        }
+        loyaltyManager.recordSpend(customerId, receipt.getTotal(), at);
+        if (points == 0) {
+            return CompletableFuture.completedFuture(null);
         }
+        return ledger.post(customerId, points);
+    }
 
-        return receipt;
+    private static void awaitPoints(List<CompletableFuture<Void>> postings) {
+        try {
+            CompletableFuture.allOf(postings.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
     }
 }
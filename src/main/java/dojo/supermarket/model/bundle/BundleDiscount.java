@@ -0,0 +1,49 @@
+package dojo.supermarket.model.bundle;
+
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.DiscountKind;
+import dojo.supermarket.model.Money;
+import dojo.supermarket.model.Product;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A bundle discount, split across the member products it was earned on.
+ * The receipt shows it as one line; the allocations say how much of it belongs to each member line.
+ */
+public class BundleDiscount extends Discount {
+
+    private final ProductBundle bundle;
+    private final int applications;
+    private final Map<Product, Money> allocations;
+
+    BundleDiscount(ProductBundle bundle, int applications, Money amount, Map<Product, Money> allocations) {
+        super(bundle.getTarget(), bundle.getDescription(), amount, DiscountKind.BUNDLE);
+        this.bundle = bundle;
+        this.applications = applications;
+        this.allocations = Collections.unmodifiableMap(allocations);
+    }
+
+    public ProductBundle getBundle() {
+        return bundle;
+    }
+
+    /**
+     * Gets the number of complete sets the discount was given for.
+     */
+    public int getApplications() {
+        return applications;
+    }
+
+    /**
+     * Gets the share of the discount allocated to each member product; the shares add up to the discount.
+     */
+    public Map<Product, Money> getAllocations() {
+        return allocations;
+    }
+
+    public Money getAllocation(Product product) {
+        return allocations.getOrDefault(product, Money.ZERO);
+    }
+}
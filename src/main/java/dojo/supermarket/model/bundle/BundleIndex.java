@@ -0,0 +1,184 @@
+package dojo.supermarket.model.bundle;
+
+import dojo.supermarket.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable inverted index from each product to the bundles it belongs to.
+ *
+ * A bundle can only apply when every one of its distinct products is in the cart. Besides the full
+ * product-to-bundles lists, each bundle is filed under a single pivot: whichever of its products was in
+ * the fewest bundles when it was added. Matching a cart only looks at the bundles pivoted on the cart's
+ * products, so a staple such as bread that appears in thousands of bundles does not make every cart
+ * containing it scan them all.
+ *
+ * Bundles are only ever appended, so each index is a view of the first {@code count} bundles over
+ * storage shared with the indexes that follow it. Adding a bundle costs time in the size of that
+ * bundle, not in the number of bundles already indexed.
+ */
+public final class BundleIndex {
+
+    public static final BundleIndex EMPTY = build(List.of());
+
+    // Marks unused capacity at the end of a product's bundle list; never below any index count
+    private static final int FREE_SLOT = Integer.MAX_VALUE;
+    private static final int[] NO_BUNDLES = new int[0];
+
+    private final ProductBundle[] bundles;
+    private final int[] distinctSizes;
+    private final Map<Product, int[]> bundlesByProduct;
+    private final Map<Product, int[]> bundlesByPivot;
+    private final int count;
+
+    private BundleIndex(ProductBundle[] bundles, int[] distinctSizes, Map<Product, int[]> bundlesByProduct,
+                        Map<Product, int[]> bundlesByPivot, int count) {
+        this.bundles = bundles;
+        this.distinctSizes = distinctSizes;
+        this.bundlesByProduct = bundlesByProduct;
+        this.bundlesByPivot = bundlesByPivot;
+        this.count = count;
+    }
+
+    public static BundleIndex build(List<ProductBundle> bundles) {
+        BundleIndex index = new BundleIndex(new ProductBundle[0], new int[0],
+            new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), 0);
+        for (ProductBundle bundle : bundles) {
+            index = index.with(bundle);
+        }
+        return index;
+    }
+
+    /**
+     * Returns an index with the bundle appended. Writes into storage shared with this index,
+     * so it must only be called on the latest index, by one thread at a time.
+     */
+    BundleIndex with(ProductBundle bundle) {
+        ProductBundle[] nextBundles = bundles;
+        int[] nextSizes = distinctSizes;
+        if (count == bundles.length) {
+            nextBundles = Arrays.copyOf(bundles, Math.max(16, count * 2));
+            nextSizes = Arrays.copyOf(distinctSizes, nextBundles.length);
+        }
+        nextBundles[count] = bundle;
+        nextSizes[count] = bundle.getQuantities().size();
+        Product pivot = null;
+        int pivotBundles = Integer.MAX_VALUE;
+        for (Product product : bundle.getQuantities().keySet()) {
+            int bundlesOfProduct = used(bundlesByProduct.getOrDefault(product, NO_BUNDLES));
+            if (bundlesOfProduct < pivotBundles) {
+                pivot = product;
+                pivotBundles = bundlesOfProduct;
+            }
+            append(bundlesByProduct, product, count);
+        }
+        if (pivot != null) {
+            append(bundlesByPivot, pivot, count);
+        }
+        return new BundleIndex(nextBundles, nextSizes, bundlesByProduct, bundlesByPivot, count + 1);
+    }
+
+    private static void append(Map<Product, int[]> lists, Product product, int index) {
+        int[] indices = lists.get(product);
+        if (indices == null) {
+            lists.put(product, new int[] {index, FREE_SLOT});
+        } else if (indices[indices.length - 1] != FREE_SLOT) {
+            int used = indices.length;
+            int[] grown = Arrays.copyOf(indices, used * 2);
+            Arrays.fill(grown, used + 1, grown.length, FREE_SLOT);
+            grown[used] = index;
+            lists.put(product, grown);
+        } else {
+            // Readers of older indexes see either a free slot or an index past their count, and skip both
+            indices[used(indices)] = index;
+        }
+    }
+
+    private static int used(int[] indices) {
+        int low = 0;
+        int high = indices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (indices[mid] == FREE_SLOT) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    public List<ProductBundle> getBundles() {
+        return Collections.unmodifiableList(Arrays.asList(bundles).subList(0, count));
+    }
+
+    public ProductBundle getBundle(int index) {
+        return bundles[index];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the number of distinct products a bundle needs in the cart.
+     */
+    public int getDistinctSize(int index) {
+        return distinctSizes[index];
+    }
+
+    /**
+     * Gets the indices, in {@link #getBundles()}, of the bundles containing the product, in ascending order.
+     */
+    public int[] bundlesOf(Product product) {
+        int[] indices = bundlesByProduct.get(product);
+        if (indices == null) {
+            return NO_BUNDLES;
+        }
+        int end = 0;
+        while (end < indices.length && indices[end] < count) {
+            end++;
+        }
+        return Arrays.copyOf(indices, end);
+    }
+
+    /**
+     * Finds the bundles whose products are all among the given distinct products, in the order they were added.
+     * Whether the quantities in the cart make up a complete set is left to the caller.
+     */
+    public List<ProductBundle> applicableTo(Collection<Product> products) {
+        Set<Product> present = products instanceof Set ? (Set<Product>) products : new HashSet<>(products);
+        int[] hits = NO_BUNDLES;
+        int hitCount = 0;
+        for (Product product : present) {
+            int[] indices = bundlesByPivot.get(product);
+            if (indices == null) {
+                continue;
+            }
+            for (int i = 0; i < indices.length && indices[i] < count; i++) {
+                if (present.containsAll(bundles[indices[i]].getQuantities().keySet())) {
+                    if (hitCount == hits.length) {
+                        hits = Arrays.copyOf(hits, Math.max(16, hits.length * 2));
+                    }
+                    hits[hitCount++] = indices[i];
+                }
+            }
+        }
+
+        // Each bundle has one pivot, so hits are distinct; sort them back into the order added
+        Arrays.sort(hits, 0, hitCount);
+        List<ProductBundle> applicable = new ArrayList<>(hitCount);
+        for (int i = 0; i < hitCount; i++) {
+            applicable.add(bundles[hits[i]]);
+        }
+        return applicable;
+    }
+}
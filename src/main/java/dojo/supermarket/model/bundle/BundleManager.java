@@ -1,25 +1,45 @@
 package dojo.supermarket.model.bundle;
 
 import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.Money;
 import dojo.supermarket.model.Product;
 import dojo.supermarket.model.SupermarketCatalog;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages product bundles and calculates bundle discounts.
  * Follows Open/Closed Principle - new bundles are added as data, not code changes.
+ * Bundles can be added while checkouts are running; each checkout matches against a stable
+ * {@link BundleIndex}, extended in place as bundles are added.
  */
 public class BundleManager {
 
-    private final List<ProductBundle> bundles = new ArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile BundleIndex index = BundleIndex.build(List.of());
 
-    public void addBundle(ProductBundle bundle) {
-        bundles.add(bundle);
+    public synchronized void addBundle(ProductBundle bundle) {
+        index = index.with(bundle);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Gets a counter that changes every time a bundle is added.
+     */
+    public long getVersion() {
+        return version.get();
     }
 
     public List<ProductBundle> getBundles() {
-        return Collections.unmodifiableList(bundles);
+        return index.getBundles();
+    }
+
+    /**
+     * Gets the product-to-bundle index for the bundles added so far.
+     */
+    public BundleIndex getIndex() {
+        return index;
     }
 
     /**
@@ -28,23 +48,120 @@ public class BundleManager {
     public List<Discount> calculateBundleDiscounts(Map<Product, Double> cartProducts,
                                                      SupermarketCatalog catalog) {
         List<Discount> discounts = new ArrayList<>();
-        List<Product> productsInCart = new ArrayList<>(cartProducts.keySet());
+        for (ProductBundle bundle : getIndex().applicableTo(cartProducts.keySet())) {
+            Discount discount = calculateBundleDiscount(bundle, cartProducts, catalog);
+            if (discount != null) {
+                discounts.add(discount);
+            }
+        }
+        return discounts;
+    }
 
-        for (ProductBundle bundle : bundles) {
-            if (bundle.isApplicable(productsInCart)) {
-                double bundleTotal = 0.0;
-                for (Product product : bundle.getProducts()) {
-                    bundleTotal += catalog.getUnitPrice(product);
-                }
-                double discountAmount = bundleTotal * bundle.getDiscountPercentage() / 100.0;
+    /**
+     * Calculates the discount for every complete set of a bundle in the cart, allocated across its
+     * members in proportion to their price. Returns null if the cart holds no complete set.
+     */
+    public BundleDiscount calculateBundleDiscount(ProductBundle bundle, Map<Product, Double> cartQuantities,
+                                                  SupermarketCatalog catalog) {
+        int applications = bundle.applicationsIn(cartQuantities);
+        if (applications == 0) {
+            return null;
+        }
 
-                // Create a virtual product for the bundle discount
-                Product bundleProduct = bundle.getProducts().get(0);
-                discounts.add(new Discount(bundleProduct, bundle.getDescription(), -discountAmount));
+        // Cached on the bundle itself, as bundles with the same name are equal but may differ in members
+        PricedBundle cached = bundle.priced;
+        if (cached != null && cached.hasPrices(catalog)) {
+            if (cached.applications == applications) {
+                return cached.discount;
             }
+            cached = cached.withApplications(applications);
+        } else {
+            cached = new PricedBundle(bundle, catalog, applications);
         }
+        bundle.priced = cached;
+        return cached.discount;
+    }
 
-        return discounts;
+    /**
+     * A bundle's member prices and the discount worked out from them. The entry is reused for as long
+     * as the catalog a checkout prices against still has the same member prices, so it stays valid
+     * across catalog versions and is recomputed only when a member price changes.
+     */
+    static final class PricedBundle {
+        final ProductBundle bundle;
+        final Product[] members;
+        final long[] unitPrices;
+        final int applications;
+        final BundleDiscount discount;
+
+        PricedBundle(ProductBundle bundle, SupermarketCatalog catalog, int applications) {
+            this.bundle = bundle;
+            this.members = bundle.getQuantities().keySet().toArray(new Product[0]);
+            this.unitPrices = new long[members.length];
+            for (int i = 0; i < members.length; i++) {
+                unitPrices[i] = Money.toMinorUnits(catalog.getUnitPrice(members[i]));
+            }
+            this.applications = applications;
+            this.discount = discountFor(applications);
+        }
+
+        private PricedBundle(PricedBundle prices, int applications) {
+            this.bundle = prices.bundle;
+            this.members = prices.members;
+            this.unitPrices = prices.unitPrices;
+            this.applications = applications;
+            this.discount = discountFor(applications);
+        }
+
+        PricedBundle withApplications(int applications) {
+            return new PricedBundle(this, applications);
+        }
+
+        boolean hasPrices(SupermarketCatalog catalog) {
+            for (int i = 0; i < members.length; i++) {
+                if (Money.toMinorUnits(catalog.getUnitPrice(members[i])) != unitPrices[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private BundleDiscount discountFor(int applications) {
+            Map<Product, Integer> quantities = bundle.getQuantities();
+            long[] memberTotals = new long[members.length];
+            long bundleTotal = 0;
+            for (int i = 0; i < members.length; i++) {
+                memberTotals[i] = Math.multiplyExact(unitPrices[i], (long) quantities.get(members[i]) * applications);
+                bundleTotal += memberTotals[i];
+            }
+            long discountAmount = Money.percentage(bundleTotal, bundle.getDiscountPercentage());
+
+            // Largest remainder, so the shares are whole cents that add up exactly to the discount
+            long[] shares = new long[members.length];
+            long[] remainders = new long[members.length];
+            long allocated = 0;
+            for (int i = 0; i < members.length && bundleTotal != 0; i++) {
+                long weighted = Math.multiplyExact(discountAmount, memberTotals[i]);
+                shares[i] = Math.floorDiv(weighted, bundleTotal);
+                remainders[i] = Math.floorMod(weighted, bundleTotal);
+                allocated += shares[i];
+            }
+            for (long left = discountAmount - allocated; left > 0; left--) {
+                int largest = 0;
+                for (int i = 1; i < remainders.length; i++) {
+                    if (remainders[i] > remainders[largest]) {
+                        largest = i;
+                    }
+                }
+                shares[largest]++;
+                remainders[largest] = -1;
+            }
+
+            Map<Product, Money> allocations = new LinkedHashMap<>();
+            for (int i = 0; i < members.length; i++) {
+                allocations.put(members[i], Money.ofMinorUnits(-shares[i]));
+            }
+            return new BundleDiscount(bundle, applications, Money.ofMinorUnits(-discountAmount), allocations);
+        }
     }
 }
-
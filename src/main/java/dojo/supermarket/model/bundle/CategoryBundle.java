@@ -0,0 +1,169 @@
+package dojo.supermarket.model.bundle;
+
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.DiscountKind;
+import dojo.supermarket.model.Money;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.SupermarketCatalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A mix-and-match bundle over every product of one category, such as "any 3 Premium items for
+ * 20% off" or "buy 3 Conjured items, cheapest free".
+ *
+ * Whole units of the category's products in the cart are grouped into sets of a fixed size,
+ * most expensive first, which is the grouping that saves the customer the most. Only as many
+ * units as fill complete sets are picked, by partially sorting the products on price with a heap.
+ */
+public class CategoryBundle {
+
+    public enum Type {
+        PERCENT_OFF,
+        CHEAPEST_FREE
+    }
+
+    private final String name;
+    private final String categoryName;
+    private final int setSize;
+    private final double discountPercentage;
+    private final Type type;
+    private final String description;
+
+    private CategoryBundle(String name, String categoryName, int setSize, double discountPercentage, Type type,
+                           String description) {
+        if (setSize <= 0) {
+            throw new IllegalArgumentException("Set size must be positive: " + setSize);
+        }
+        this.name = name;
+        this.categoryName = categoryName;
+        this.setSize = setSize;
+        this.discountPercentage = discountPercentage;
+        this.type = type;
+        this.description = description;
+    }
+
+    /**
+     * Creates a rule giving a percentage off every complete set of items from the category.
+     */
+    public static CategoryBundle percentOff(String name, String categoryName, int setSize, double discountPercentage) {
+        return new CategoryBundle(name, categoryName, setSize, discountPercentage, Type.PERCENT_OFF,
+            name + " - any " + setSize + " " + categoryName + " for " + discountPercentage + "% off");
+    }
+
+    /**
+     * Creates a rule making the cheapest item of every complete set from the category free.
+     */
+    public static CategoryBundle cheapestFree(String name, String categoryName, int setSize) {
+        return new CategoryBundle(name, categoryName, setSize, 100.0, Type.CHEAPEST_FREE,
+            name + " - buy " + setSize + " " + categoryName + ", cheapest free");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public int getSetSize() {
+        return setSize;
+    }
+
+    public double getDiscountPercentage() {
+        return discountPercentage;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Calculates the discount for the given products of this rule's category.
+     * Returns null if they do not fill a single set.
+     */
+    public Discount calculateDiscount(Collection<Product> products, Map<Product, Double> cartQuantities,
+                                      SupermarketCatalog catalog) {
+        return calculateDiscount(products, cartQuantities, catalog, null);
+    }
+
+    /**
+     * Calculates the discount as above, also adding to {@code selectedProducts} each product that has units in a set.
+     */
+    public Discount calculateDiscount(Collection<Product> products, Map<Product, Double> cartQuantities,
+                                      SupermarketCatalog catalog, Collection<Product> selectedProducts) {
+        List<PricedUnits> priced = new ArrayList<>(products.size());
+        long totalUnits = 0;
+        for (Product product : products) {
+            long units = (long) Math.floor(cartQuantities.getOrDefault(product, 0.0));
+            if (units > 0) {
+                priced.add(new PricedUnits(product, Money.toMinorUnits(catalog.getUnitPrice(product)), units, priced.size()));
+                totalUnits += units;
+            }
+        }
+        long selected = totalUnits / setSize * setSize;
+        if (selected == 0) {
+            return null;
+        }
+
+        // Heapify is linear; only the products that fill the sets are popped
+        PriorityQueue<PricedUnits> byPrice = new PriorityQueue<>(priced);
+        long position = 0;
+        long amount = 0;
+        Product target = null;
+        while (position < selected) {
+            PricedUnits next = byPrice.poll();
+            long taken = Math.min(next.units, selected - position);
+            if (selectedProducts != null) {
+                selectedProducts.add(next.product);
+            }
+            if (type == Type.PERCENT_OFF) {
+                amount += next.unitPrice * taken;
+                if (target == null) {
+                    target = next.product;
+                }
+            } else {
+                // The last unit of each set, counting from the most expensive, is the free one
+                long free = (position + taken) / setSize - position / setSize;
+                if (free > 0) {
+                    amount += next.unitPrice * free;
+                    target = next.product;
+                }
+            }
+            position += taken;
+        }
+        if (type == Type.PERCENT_OFF) {
+            amount = Money.percentage(amount, discountPercentage);
+        }
+        return Discount.ofMinorUnits(target, description, -amount, DiscountKind.BUNDLE);
+    }
+
+    private static final class PricedUnits implements Comparable<PricedUnits> {
+        final Product product;
+        final long unitPrice;
+        final long units;
+        final int order;
+
+        PricedUnits(Product product, long unitPrice, long units, int order) {
+            this.product = product;
+            this.unitPrice = unitPrice;
+            this.units = units;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(PricedUnits other) {
+            int byPrice = Long.compare(other.unitPrice, unitPrice);
+            return byPrice != 0 ? byPrice : Integer.compare(order, other.order);
+        }
+    }
+}
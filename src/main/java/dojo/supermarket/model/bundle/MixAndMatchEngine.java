@@ -0,0 +1,91 @@
+package dojo.supermarket.model.bundle;
+
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ProductCategory;
+import dojo.supermarket.model.SupermarketCatalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Applies category-wide mix-and-match bundles.
+ * The cart is grouped by category once, and each rule only looks at its own category's products.
+ * Rules can be added while checkouts are running.
+ */
+public class MixAndMatchEngine {
+
+    private final List<CategoryBundle> rules = new CopyOnWriteArrayList<>();
+    private volatile Set<String> categoriesWithRules = Set.of();
+
+    public synchronized void addRule(CategoryBundle rule) {
+        rules.add(rule);
+        Set<String> categories = new HashSet<>(categoriesWithRules);
+        categories.add(rule.getCategoryName());
+        categoriesWithRules = Set.copyOf(categories);
+    }
+
+    public List<CategoryBundle> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Checks if any rule targets the category, so products of other categories can be skipped.
+     */
+    public boolean hasRulesFor(ProductCategory category) {
+        return category != null && categoriesWithRules.contains(category.getCategoryName());
+    }
+
+    /**
+     * Calculates mix-and-match discounts for products in the cart, in the order the rules were added.
+     */
+    public List<Discount> calculateDiscounts(Map<Product, Double> cartQuantities, SupermarketCatalog catalog) {
+        return calculateDiscounts(cartQuantities.keySet(), cartQuantities, catalog);
+    }
+
+    /**
+     * Calculates mix-and-match discounts for the given distinct cart products. Among equally priced
+     * items, those listed first are grouped first.
+     */
+    public List<Discount> calculateDiscounts(Collection<Product> products, Map<Product, Double> cartQuantities,
+                                             SupermarketCatalog catalog) {
+        List<Discount> discounts = new ArrayList<>();
+        if (rules.isEmpty()) {
+            return discounts;
+        }
+        Map<String, List<Product>> byCategory = groupByCategory(products);
+        if (byCategory.isEmpty()) {
+            return discounts;
+        }
+        for (CategoryBundle rule : rules) {
+            List<Product> members = byCategory.get(rule.getCategoryName());
+            if (members != null) {
+                Discount discount = rule.calculateDiscount(members, cartQuantities, catalog);
+                if (discount != null) {
+                    discounts.add(discount);
+                }
+            }
+        }
+        return discounts;
+    }
+
+    /**
+     * Groups the given products by category name, keeping only categories that have rules, in the order given.
+     */
+    public Map<String, List<Product>> groupByCategory(Collection<Product> products) {
+        Map<String, List<Product>> byCategory = new HashMap<>();
+        for (Product product : products) {
+            if (hasRulesFor(product.getCategory())) {
+                byCategory.computeIfAbsent(product.getCategory().getCategoryName(), c -> new ArrayList<>()).add(product);
+            }
+        }
+        return byCategory;
+    }
+}
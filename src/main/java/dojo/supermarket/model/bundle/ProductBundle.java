@@ -2,30 +2,87 @@ package dojo.supermarket.model.bundle;
 
 import dojo.supermarket.model.Product;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
  * Represents a discounted bundle of products.
  * Bundles allow purchasing multiple products together at a reduced price.
  *
+ * Each member has a required quantity, e.g. 2 x A + 1 x B, and the bundle applies as many
+ * times as the cart holds complete sets, up to a maximum number of applications.
+ *
  * This enables the Open/Closed Principle - new bundles can be added
  * without modifying existing discount calculation logic.
  */
 public class ProductBundle {
 
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+
 	private final String name;
 	private final List<Product> products;
+	private final Map<Product, Integer> quantities;
+	private final Product target;
+	private final int maxApplications;
 	private final double discountPercentage;
 	private final String description;
 
+	// The pricing BundleManager last worked out for this bundle, replaced whole when it changes
+	volatile BundleManager.PricedBundle priced;
+
+	/**
+	 * Creates a bundle of one of each listed product that applies at most once per cart.
+	 * A product listed twice is needed twice.
+	 */
 	public ProductBundle(String name, List<Product> products, double discountPercentage) {
+		this(name, countProducts(products), discountPercentage, 1, products);
+	}
+
+	/**
+	 * Creates a bundle with per-member quantities that applies as many times as the cart allows.
+	 */
+	public ProductBundle(String name, Map<Product, Integer> quantities, double discountPercentage) {
+		this(name, quantities, discountPercentage, UNLIMITED);
+	}
+
+	public ProductBundle(String name, Map<Product, Integer> quantities, double discountPercentage,
+						 int maxApplications) {
+		this(name, new LinkedHashMap<>(quantities), discountPercentage, maxApplications,
+			new ArrayList<>(quantities.keySet()));
+	}
+
+	private ProductBundle(String name, Map<Product, Integer> quantities, double discountPercentage,
+						  int maxApplications, List<Product> products) {
+		if (quantities.isEmpty()) {
+			throw new IllegalArgumentException("Bundle must have at least one product: " + name);
+		}
+		for (Map.Entry<Product, Integer> member : quantities.entrySet()) {
+			if (member.getValue() <= 0) {
+				throw new IllegalArgumentException("Bundle quantity must be positive: " + member.getKey().getName());
+			}
+		}
 		this.name = name;
 		this.products = products;
+		this.quantities = Collections.unmodifiableMap(quantities);
+		this.target = quantities.keySet().iterator().next();
+		this.maxApplications = maxApplications;
 		this.discountPercentage = discountPercentage;
 		this.description = name + " bundle - " + discountPercentage + "% off";
 	}
 
+	private static Map<Product, Integer> countProducts(List<Product> products) {
+		Map<Product, Integer> quantities = new LinkedHashMap<>();
+		for (Product product : products) {
+			quantities.merge(product, 1, Integer::sum);
+		}
+		return quantities;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -34,6 +91,25 @@ public class ProductBundle {
 		return products;
 	}
 
+	/**
+	 * Gets the product the bundle's single receipt line is shown against: its first member.
+	 * How much of the discount belongs to each member is given by {@link BundleDiscount#getAllocations()}.
+	 */
+	public Product getTarget() {
+		return target;
+	}
+
+	/**
+	 * Gets the quantity of each member needed for one application of the bundle.
+	 */
+	public Map<Product, Integer> getQuantities() {
+		return quantities;
+	}
+
+	public int getMaxApplications() {
+		return maxApplications;
+	}
+
 	public double getDiscountPercentage() {
 		return discountPercentage;
 	}
@@ -45,8 +121,23 @@ public class ProductBundle {
 	/**
 	 * Checks if all products in the bundle are present in the cart.
 	 */
-	public boolean isApplicable(List<Product> cartProducts) {
-		return cartProducts.containsAll(products);
+	public boolean isApplicable(Collection<Product> cartProducts) {
+		return cartProducts.containsAll(quantities.keySet());
+	}
+
+	/**
+	 * Counts how many complete sets of the bundle the cart holds, capped at the maximum number of applications.
+	 */
+	public int applicationsIn(Map<Product, Double> cartQuantities) {
+		long applications = maxApplications;
+		for (Map.Entry<Product, Integer> member : quantities.entrySet()) {
+			Double inCart = cartQuantities.get(member.getKey());
+			if (inCart == null) {
+				return 0;
+			}
+			applications = Math.min(applications, (long) Math.floor(inCart / member.getValue()));
+		}
+		return (int) Math.max(0, applications);
 	}
 
 	@Override
@@ -62,4 +153,3 @@ public class ProductBundle {
 		return Objects.hash(name);
 	}
 }
-
@@ -0,0 +1,268 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ProductCategory;
+import dojo.supermarket.model.ProductRegistry;
+import dojo.supermarket.model.ProductUnit;
+import dojo.supermarket.model.SupermarketCatalog;
+import dojo.supermarket.model.category.ConjuredCategory;
+import dojo.supermarket.model.category.PremiumCategory;
+import dojo.supermarket.model.category.StandardCategory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Loads a catalog from a CSV price export.
+ *
+ * Each row is {@code name,unit,category,price}; an optional header row is skipped. The unit,
+ * category and price columns never contain commas, so they are split off from the right and the
+ * name may contain commas without quoting. The file is split into newline-aligned chunks that are
+ * mapped with NIO and parsed in parallel on a fork-join pool, then the rows are handed to the
+ * catalog in file order through a single {@link SupermarketCatalog#addProducts} call.
+ * Products are interned in the caller's {@link ProductRegistry}, so repeated names share one instance.
+ */
+public class CatalogImporter {
+
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 64 << 20;
+
+    private final ForkJoinPool pool;
+    private final ProductRegistry registry;
+    private final Map<String, ProductCategory> categories = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an importer that parses on the common pool and interns every imported product in the given registry.
+     * Pass the registry the tellers and servers of the store node share, so imported products match theirs.
+     */
+    public CatalogImporter(ProductRegistry registry) {
+        this(ForkJoinPool.commonPool(), registry);
+    }
+
+    /**
+     * Creates an importer that interns every imported product in the given registry.
+     */
+    public CatalogImporter(ForkJoinPool pool, ProductRegistry registry) {
+        this.pool = pool;
+        this.registry = registry;
+        addCategory(new StandardCategory());
+        addCategory(new PremiumCategory());
+        addCategory(new ConjuredCategory());
+    }
+
+    /**
+     * Registers the category instance shared by every imported row naming it.
+     * Allows extending the importer with new categories without modifying it.
+     */
+    public void registerCategory(ProductCategory category) {
+        addCategory(category);
+    }
+
+    private void addCategory(ProductCategory category) {
+        categories.put(category.getCategoryName(), category);
+    }
+
+    /**
+     * Imports every row of the file into the catalog and returns the number of products loaded,
+     * not counting a header row.
+     */
+    public int importInto(Path file, SupermarketCatalog catalog) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] boundaries = chunkBoundaries(channel);
+            List<Callable<ParsedChunk>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                long start = boundaries[i];
+                long end = boundaries[i + 1];
+                tasks.add(() -> parse(channel, start, end));
+            }
+
+            List<ParsedChunk> chunks = new ArrayList<>();
+            int total = 0;
+            for (Future<ParsedChunk> future : pool.invokeAll(tasks)) {
+                ParsedChunk chunk = future.get();
+                chunks.add(chunk);
+                total += chunk.size;
+            }
+
+            List<Product> products = new ArrayList<>(total);
+            double[] prices = new double[total];
+            for (ParsedChunk chunk : chunks) {
+                System.arraycopy(chunk.prices, 0, prices, products.size(), chunk.size);
+                products.addAll(Arrays.asList(chunk.products).subList(0, chunk.size));
+            }
+            catalog.addProducts(products, prices);
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Catalog import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Splits the file into chunks that each end just after a newline.
+     */
+    private long[] chunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long target = size / (pool.getParallelism() * 4L);
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, target));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long position = chunkSize;
+        while (position < size) {
+            long lineEnd = nextLineStart(channel, position, probe);
+            if (lineEnd >= size) {
+                break;
+            }
+            boundaries.add(lineEnd);
+            position = lineEnd + chunkSize;
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private ParsedChunk parse(FileChannel channel, long start, long end) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ParsedChunk chunk = new ParsedChunk();
+        byte[] line = new byte[256];
+        int limit = buffer.limit();
+        int position = 0;
+        boolean firstLine = start == 0;
+        while (position < limit) {
+            int length = 0;
+            while (position < limit) {
+                byte b = buffer.get(position++);
+                if (b == '\n') {
+                    break;
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            if (length > 0) {
+                parseRow(line, length, firstLine, chunk);
+                firstLine = false;
+            }
+        }
+        return chunk;
+    }
+
+    private void parseRow(byte[] line, int length, boolean firstRow, ParsedChunk chunk) {
+        int priceComma = lastComma(line, length);
+        int categoryComma = lastComma(line, priceComma);
+        int unitComma = lastComma(line, categoryComma);
+        if (unitComma <= 0) {
+            throw malformed(line, length);
+        }
+
+        String priceText = text(line, priceComma + 1, length).trim();
+        if (firstRow && priceText.equalsIgnoreCase("price")) {
+            return;
+        }
+
+        String name = text(line, 0, unitComma).trim();
+        ProductUnit unit;
+        try {
+            unit = ProductUnit.valueOf(text(line, unitComma + 1, categoryComma).trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw malformed(line, length);
+        }
+        String categoryName = text(line, categoryComma + 1, priceComma).trim();
+        ProductCategory category = categories.get(categoryName);
+        if (category == null) {
+            throw new IllegalArgumentException("Unknown product category: " + categoryName);
+        }
+        double price;
+        try {
+            price = Double.parseDouble(priceText);
+        } catch (NumberFormatException e) {
+            throw malformed(line, length);
+        }
+        chunk.add(registry.intern(name, unit, category), price);
+    }
+
+    private static int lastComma(byte[] line, int before) {
+        for (int i = before - 1; i >= 0; i--) {
+            if (line[i] == ',') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String text(byte[] line, int from, int to) {
+        return new String(line, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static IllegalArgumentException malformed(byte[] line, int length) {
+        return new IllegalArgumentException("Malformed price row: " + text(line, 0, length));
+    }
+
+    private static class ParsedChunk {
+        Product[] products = new Product[1024];
+        double[] prices = new double[1024];
+        int size;
+
+        void add(Product product, double price) {
+            if (size == products.length) {
+                products = Arrays.copyOf(products, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+            }
+            products[size] = product;
+            prices[size] = price;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.SupermarketCatalog;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable price version published by a {@link VersionedCatalog}.
+ * A checkout that pins a snapshot sees the same prices from the first item to the last discount.
+ */
+public final class CatalogSnapshot implements SupermarketCatalog {
+
+    private final long version;
+    private final ProductIndex index;
+    private final double[] prices;
+
+    private CatalogSnapshot(long version, ProductIndex index, double[] prices) {
+        this.version = version;
+        this.index = index;
+        this.prices = prices;
+    }
+
+    static CatalogSnapshot empty() {
+        return new CatalogSnapshot(0, new ProductIndex(), new double[0]);
+    }
+
+    /**
+     * Creates the next version with the given price changes applied; this snapshot is left untouched.
+     * Price-only changes share the product index and copy just the price table.
+     */
+    CatalogSnapshot apply(List<Product> products, double[] newPrices) {
+        ProductIndex nextIndex = index;
+        for (Product product : products) {
+            if (nextIndex.indexOf(product) < 0) {
+                if (nextIndex == index) {
+                    nextIndex = index.copy();
+                    nextIndex.ensureCapacity(index.size() + products.size());
+                }
+                nextIndex.add(product);
+            }
+        }
+        double[] nextPrices = Arrays.copyOf(prices, nextIndex.size());
+        for (int i = 0; i < products.size(); i++) {
+            nextPrices[nextIndex.indexOf(products.get(i))] = newPrices[i];
+        }
+        return new CatalogSnapshot(version + 1, nextIndex, nextPrices);
+    }
+
+    @Override
+    public void addProduct(Product product, double price) {
+        throw new UnsupportedOperationException("Catalog snapshots are immutable; publish a CatalogUpdate instead");
+    }
+
+    @Override
+    public double getUnitPrice(Product product) {
+        int id = index.indexOf(product);
+        if (id < 0) {
+            throw new IllegalArgumentException("Unknown product: " + product.getName());
+        }
+        return prices[id];
+    }
+
+    @Override
+    public SupermarketCatalog snapshot() {
+        return this;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return index.size();
+    }
+}
@@ -0,0 +1,38 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Batch of price changes that a {@link VersionedCatalog} publishes as one new version.
+ * When a product is priced twice in the same batch, the last price wins.
+ */
+public class CatalogUpdate {
+
+    private final VersionedCatalog catalog;
+    private final List<Product> products = new ArrayList<>();
+    private double[] prices = new double[16];
+
+    CatalogUpdate(VersionedCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public CatalogUpdate setPrice(Product product, double price) {
+        if (products.size() == prices.length) {
+            prices = Arrays.copyOf(prices, prices.length * 2);
+        }
+        prices[products.size()] = price;
+        products.add(product);
+        return this;
+    }
+
+    /**
+     * Publishes every change in this batch atomically and returns the resulting snapshot.
+     */
+    public CatalogSnapshot publish() {
+        return catalog.publish(products, prices);
+    }
+}
@@ -0,0 +1,80 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.SupermarketCatalog;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Catalog that assigns each product a dense int id and keeps prices in a primitive table.
+ * A price lookup is an index probe followed by a single array read, without boxing.
+ *
+ * Not thread-safe: populate it before sharing it between checkout lanes.
+ */
+public class IndexedCatalog implements SupermarketCatalog {
+
+    private final ProductIndex index;
+    private double[] prices;
+
+    public IndexedCatalog() {
+        this(16);
+    }
+
+    public IndexedCatalog(int expectedProducts) {
+        this.index = new ProductIndex(expectedProducts);
+        this.prices = new double[Math.max(expectedProducts, 16)];
+    }
+
+    @Override
+    public void addProduct(Product product, double price) {
+        int id = index.add(product);
+        if (id == prices.length) {
+            prices = Arrays.copyOf(prices, prices.length * 2);
+        }
+        prices[id] = price;
+    }
+
+    @Override
+    public void addProducts(List<Product> products, double[] prices) {
+        int expected = index.size() + products.size();
+        index.ensureCapacity(expected);
+        if (expected > this.prices.length) {
+            this.prices = Arrays.copyOf(this.prices, expected);
+        }
+        for (int i = 0; i < products.size(); i++) {
+            this.prices[index.add(products.get(i))] = prices[i];
+        }
+    }
+
+    @Override
+    public double getUnitPrice(Product product) {
+        return prices[idOf(product)];
+    }
+
+    /**
+     * Gets the unit price for a product id previously returned by {@link #idOf(Product)}.
+     */
+    public double getUnitPrice(int productId) {
+        return prices[productId];
+    }
+
+    /**
+     * Gets the dense id assigned to a product.
+     */
+    public int idOf(Product product) {
+        int id = index.indexOf(product);
+        if (id < 0) {
+            throw new IllegalArgumentException("Unknown product: " + product.getName());
+        }
+        return id;
+    }
+
+    public Product getProduct(int productId) {
+        return index.product(productId);
+    }
+
+    public int size() {
+        return index.size();
+    }
+}
@@ -0,0 +1,142 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.SupermarketCatalog;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog backed by a memory-mapped {@link PriceFile}.
+ * Startup maps the file instead of parsing it, and a background watcher swaps to the new
+ * mapping when head office replaces the file. Checkouts pin the mapping they started with
+ * through {@link #snapshot()}, so a reload never mixes two price versions in one receipt.
+ * A file that fails to map keeps the previous version in service; the failure is counted and
+ * kept for {@link #getLastReloadFailure()}.
+ */
+public class MappedPriceCatalog implements SupermarketCatalog, AutoCloseable {
+
+    private final Path path;
+    private volatile MappedPriceTable table;
+    private volatile long version;
+    private final AtomicLong reloadFailures = new AtomicLong();
+    private volatile IOException lastReloadFailure;
+    private WatchService watchService;
+
+    public MappedPriceCatalog(Path path) throws IOException {
+        this.path = path.toAbsolutePath();
+        this.table = PriceFile.map(this.path);
+    }
+
+    @Override
+    public void addProduct(Product product, double price) {
+        throw new UnsupportedOperationException("Mapped catalogs are read-only; publish a new price file instead");
+    }
+
+    @Override
+    public double getUnitPrice(Product product) {
+        return table.getUnitPrice(product);
+    }
+
+    @Override
+    public void getUnitPrices(List<Product> products, double[] out) {
+        table.getUnitPrices(products, out);
+    }
+
+    @Override
+    public SupermarketCatalog snapshot() {
+        return table;
+    }
+
+    /**
+     * Re-maps the price file and publishes it to new checkouts.
+     */
+    public synchronized void reload() throws IOException {
+        table = PriceFile.map(path);
+        version++;
+    }
+
+    /**
+     * Gets the number of reloads published since this catalog was opened.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Gets the number of times the watcher found a replaced price file it could not map.
+     */
+    public long getReloadFailureCount() {
+        return reloadFailures.get();
+    }
+
+    /**
+     * Gets why the watcher last failed to reload, or null if it never has.
+     */
+    public IOException getLastReloadFailure() {
+        return lastReloadFailure;
+    }
+
+    /**
+     * Starts a daemon thread that reloads the catalog whenever the price file is replaced.
+     */
+    public synchronized void startWatching() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        watchService = path.getFileSystem().newWatchService();
+        path.getParent().register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        Thread watcher = new Thread(() -> watch(watchService), "price-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (path.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    try {
+                        reload();
+                    } catch (IOException e) {
+                        // Keep serving the previous version until a valid file is published
+                        lastReloadFailure = e;
+                        reloadFailures.incrementAndGet();
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Catalog closed
+        }
+    }
+}
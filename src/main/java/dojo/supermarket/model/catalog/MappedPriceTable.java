@@ -0,0 +1,73 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.SupermarketCatalog;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only view of one mapped {@link PriceFile}.
+ * Each instance is an immutable price version; {@link MappedPriceCatalog} swaps instances on reload.
+ */
+class MappedPriceTable implements SupermarketCatalog {
+
+    private final ByteBuffer buffer;
+    private final int productCount;
+    private final int slotMask;
+
+    MappedPriceTable(ByteBuffer buffer, int productCount, int slotCount) {
+        this.buffer = buffer;
+        this.productCount = productCount;
+        this.slotMask = slotCount - 1;
+    }
+
+    @Override
+    public void addProduct(Product product, double price) {
+        throw new UnsupportedOperationException("Mapped price tables are read-only; publish a new price file instead");
+    }
+
+    @Override
+    public double getUnitPrice(Product product) {
+        int record = find(product);
+        if (record < 0) {
+            throw new IllegalArgumentException("Unknown product: " + product.getName());
+        }
+        int nameLength = buffer.getShort(record + 5);
+        return buffer.getDouble(record + PriceFile.RECORD_NAME_OFFSET + nameLength * Character.BYTES);
+    }
+
+    int size() {
+        return productCount;
+    }
+
+    private int find(Product product) {
+        int hash = PriceFile.hash(product);
+        int slot = hash & slotMask;
+        int record;
+        while ((record = buffer.getInt(PriceFile.HEADER_SIZE + slot * Integer.BYTES)) != 0) {
+            if (buffer.getInt(record) == hash && matches(record, product)) {
+                return record;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        return -1;
+    }
+
+    private boolean matches(int record, Product product) {
+        if (buffer.get(record + 4) != product.getUnit().ordinal()) {
+            return false;
+        }
+        String name = product.getName();
+        int nameLength = buffer.getShort(record + 5);
+        if (nameLength != name.length()) {
+            return false;
+        }
+        int chars = record + PriceFile.RECORD_NAME_OFFSET;
+        for (int i = 0; i < nameLength; i++) {
+            if (buffer.getChar(chars + i * Character.BYTES) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,164 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.Product;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Binary price file format read by {@link MappedPriceCatalog}.
+ *
+ * Layout: a header (magic, format version, product count, slot count), an open-addressing
+ * slot table of record offsets, then one record per product
+ * (hash, unit ordinal, name length, UTF-16 name chars, price).
+ * Lookups probe the slot table and compare names in place, so nothing is loaded onto the heap.
+ * The header and every record are checked against the file size when a file is mapped, so a
+ * truncated or corrupt file is rejected instead of failing a checkout later.
+ */
+public final class PriceFile {
+
+    static final int MAGIC = 0x53504631; // "SPF1"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_NAME_OFFSET = 7;
+    static final int MAX_NAME_LENGTH = Short.MAX_VALUE;
+
+    private PriceFile() {
+    }
+
+    /**
+     * Writes a price file, replacing the target atomically so that watchers never map a partial file.
+     *
+     * @throws IllegalArgumentException if a product name is longer than {@value #MAX_NAME_LENGTH} characters
+     */
+    public static void write(Path target, Map<Product, Double> prices) throws IOException {
+        Product[] products = prices.keySet().toArray(new Product[0]);
+        for (Product product : products) {
+            if (product.getName().length() > MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("Product name longer than " + MAX_NAME_LENGTH + " characters: "
+                    + product.getName().substring(0, 32) + "...");
+            }
+        }
+        int slotCount = slotCountFor(products.length);
+        int[] slots = new int[slotCount];
+        int[] recordOffsets = new int[products.length];
+
+        int offset = HEADER_SIZE + slotCount * Integer.BYTES;
+        for (int i = 0; i < products.length; i++) {
+            recordOffsets[i] = offset;
+            offset += recordSize(products[i].getName());
+
+            int slot = hash(products[i]) & (slotCount - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            slots[slot] = recordOffsets[i];
+        }
+
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(products.length);
+            out.writeInt(slotCount);
+            for (int slot : slots) {
+                out.writeInt(slot);
+            }
+            for (Product product : products) {
+                String name = product.getName();
+                out.writeInt(hash(product));
+                out.writeByte(product.getUnit().ordinal());
+                out.writeShort(name.length());
+                out.writeChars(name);
+                out.writeDouble(prices.get(product));
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a price file read-only. The mapping stays valid even if the file is replaced later.
+     */
+    static MappedPriceTable map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a price file: " + path);
+            }
+            if (buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Unsupported price file version " + buffer.getInt(4) + ": " + path);
+            }
+            int productCount = buffer.getInt(8);
+            int slotCount = buffer.getInt(12);
+            validate(buffer, productCount, slotCount, path);
+            return new MappedPriceTable(buffer, productCount, slotCount);
+        }
+    }
+
+    /**
+     * Checks that the slot table and records fit the file exactly and that every slot points at a record.
+     */
+    private static void validate(MappedByteBuffer buffer, int productCount, int slotCount, Path path) throws IOException {
+        long size = buffer.capacity();
+        if (productCount < 0 || slotCount <= productCount || Integer.bitCount(slotCount) != 1
+                || HEADER_SIZE + (long) slotCount * Integer.BYTES > size) {
+            throw new IOException("Corrupt price file header (" + productCount + " products, " + slotCount
+                + " slots): " + path);
+        }
+        int recordsStart = HEADER_SIZE + slotCount * Integer.BYTES;
+        long offset = recordsStart;
+        for (int i = 0; i < productCount; i++) {
+            if (offset + RECORD_NAME_OFFSET > size) {
+                throw new IOException("Truncated price file: " + path);
+            }
+            int nameLength = buffer.getShort((int) offset + 5);
+            offset += RECORD_NAME_OFFSET + (long) Math.max(nameLength, 0) * Character.BYTES + Double.BYTES;
+            if (nameLength < 0 || offset > size) {
+                throw new IOException("Truncated price file: " + path);
+            }
+        }
+        if (offset != size) {
+            throw new IOException("Price file size does not match its header: " + path);
+        }
+        int used = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int record = buffer.getInt(HEADER_SIZE + slot * Integer.BYTES);
+            if (record == 0) {
+                continue;
+            }
+            if (record < recordsStart || record + RECORD_NAME_OFFSET > size) {
+                throw new IOException("Corrupt price file slot table: " + path);
+            }
+            used++;
+        }
+        if (used != productCount) {
+            throw new IOException("Corrupt price file slot table: " + path);
+        }
+    }
+
+    static int hash(Product product) {
+        return product.getName().hashCode() * 31 + product.getUnit().ordinal();
+    }
+
+    private static int recordSize(String name) {
+        return RECORD_NAME_OFFSET + name.length() * Character.BYTES + Double.BYTES;
+    }
+
+    private static int slotCountFor(int products) {
+        int slots = 16;
+        while (slots < products * 2) {
+            slots <<= 1;
+        }
+        return slots;
+    }
+}
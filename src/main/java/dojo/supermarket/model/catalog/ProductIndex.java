@@ -0,0 +1,131 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.Product;
+
+import java.util.Arrays;
+
+/**
+ * Assigns each distinct product a dense int id.
+ * Uses open addressing over plain arrays so lookups neither box ids nor allocate entries.
+ */
+class ProductIndex {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Product[] slots;
+    private int[] slotIds;
+    private Product[] products;
+    private int size;
+
+    ProductIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    ProductIndex(int expectedProducts) {
+        int capacity = tableSizeFor(expectedProducts);
+        this.slots = new Product[capacity];
+        this.slotIds = new int[capacity];
+        this.products = new Product[Math.max(expectedProducts, DEFAULT_CAPACITY)];
+    }
+
+    private ProductIndex(ProductIndex source) {
+        this.slots = source.slots.clone();
+        this.slotIds = source.slotIds.clone();
+        this.products = source.products.clone();
+        this.size = source.size;
+    }
+
+    /**
+     * Creates an independent copy that can be extended without affecting this index.
+     */
+    ProductIndex copy() {
+        return new ProductIndex(this);
+    }
+
+    /**
+     * Returns the id of the given product, or -1 if it has not been indexed.
+     */
+    int indexOf(Product product) {
+        int mask = slots.length - 1;
+        int slot = spread(product.hashCode()) & mask;
+        Product candidate;
+        while ((candidate = slots[slot]) != null) {
+            if (candidate == product || candidate.equals(product)) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the id of the given product, assigning the next free id if it is new.
+     */
+    int add(Product product) {
+        int existing = indexOf(product);
+        if (existing >= 0) {
+            return existing;
+        }
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        if (size == products.length) {
+            products = Arrays.copyOf(products, size * 2);
+        }
+        int id = size++;
+        products[id] = product;
+        insert(product, id);
+        return id;
+    }
+
+    /**
+     * Sizes the index for the given number of products so that a bulk load does not rehash repeatedly.
+     */
+    void ensureCapacity(int expectedProducts) {
+        if (expectedProducts > products.length) {
+            products = Arrays.copyOf(products, expectedProducts);
+        }
+        int capacity = tableSizeFor(expectedProducts);
+        if (capacity > slots.length) {
+            rehash(capacity);
+        }
+    }
+
+    Product product(int id) {
+        return products[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void insert(Product product, int id) {
+        int mask = slots.length - 1;
+        int slot = spread(product.hashCode()) & mask;
+        while (slots[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = product;
+        slotIds[slot] = id;
+    }
+
+    private void rehash(int capacity) {
+        slots = new Product[capacity];
+        slotIds = new int[capacity];
+        for (int id = 0; id < size; id++) {
+            insert(products[id], id);
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableSizeFor(int expectedProducts) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < expectedProducts * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,83 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.SupermarketCatalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Prices for a fixed set of products, fetched from the backing catalog with one batch lookup.
+ * A checkout resolves its cart through this view so that the item loop, offers and bundles
+ * never go back to the backing catalog for a product they have already priced.
+ */
+public final class ResolvedPrices implements SupermarketCatalog {
+
+    private final SupermarketCatalog source;
+    private final ProductIndex index;
+    private final double[] prices;
+
+    private ResolvedPrices(SupermarketCatalog source, ProductIndex index, double[] prices) {
+        this.source = source;
+        this.index = index;
+        this.prices = prices;
+    }
+
+    /**
+     * Resolves the given products against the catalog with a single batch lookup.
+     * Duplicates are resolved once, in the order they first appear.
+     */
+    public static ResolvedPrices resolve(SupermarketCatalog catalog, Collection<Product> products) {
+        ProductIndex index = new ProductIndex(products.size());
+        List<Product> ordered = new ArrayList<>(products.size());
+        for (Product product : products) {
+            if (index.indexOf(product) < 0) {
+                index.add(product);
+                ordered.add(product);
+            }
+        }
+        double[] prices = new double[ordered.size()];
+        catalog.getUnitPrices(ordered, prices);
+        return new ResolvedPrices(catalog, index, prices);
+    }
+
+    @Override
+    public void addProduct(Product product, double price) {
+        throw new UnsupportedOperationException("Resolved prices are read-only");
+    }
+
+    /**
+     * Gets a resolved price, falling back to the backing catalog for products outside the resolved set.
+     */
+    @Override
+    public double getUnitPrice(Product product) {
+        int id = index.indexOf(product);
+        return id >= 0 ? prices[id] : source.getUnitPrice(product);
+    }
+
+    @Override
+    public SupermarketCatalog snapshot() {
+        return this;
+    }
+
+    /**
+     * Gets the position of a product in the resolved set, or -1 if it was not resolved.
+     * Positions follow the order in which products were first passed to {@link #resolve}.
+     */
+    public int indexOf(Product product) {
+        return index.indexOf(product);
+    }
+
+    public Product getProduct(int position) {
+        return index.product(position);
+    }
+
+    public double getUnitPrice(int position) {
+        return prices[position];
+    }
+
+    public int size() {
+        return prices.length;
+    }
+}
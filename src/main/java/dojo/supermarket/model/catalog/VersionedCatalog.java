@@ -0,0 +1,75 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.SupermarketCatalog;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Copy-on-write catalog for price updates during trading hours.
+ * Readers take the current {@link CatalogSnapshot} without locking; writers build the next
+ * version off to the side and publish it with a compare-and-set, so readers never wait on writers
+ * and never see half of a batch.
+ *
+ * Every publish copies the price table, so a catalog is loaded through {@link #addProducts} or
+ * {@link #update()}, as {@link CatalogImporter} does, rather than one {@link #addProduct} per row.
+ */
+public class VersionedCatalog implements SupermarketCatalog {
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>(CatalogSnapshot.empty());
+
+    /**
+     * Starts a batch of price changes that becomes visible all at once on {@link CatalogUpdate#publish()}.
+     */
+    public CatalogUpdate update() {
+        return new CatalogUpdate(this);
+    }
+
+    /**
+     * Publishes a new version with the one product changed. Each call copies the whole catalog,
+     * so it suits a single price change; bulk loads go through {@link #addProducts}.
+     */
+    @Override
+    public void addProduct(Product product, double price) {
+        publish(Collections.singletonList(product), new double[] {price});
+    }
+
+    /**
+     * Publishes the whole bulk load as a single new version.
+     */
+    @Override
+    public void addProducts(List<Product> products, double[] prices) {
+        publish(products, prices);
+    }
+
+    @Override
+    public double getUnitPrice(Product product) {
+        return current.get().getUnitPrice(product);
+    }
+
+    @Override
+    public void getUnitPrices(List<Product> products, double[] out) {
+        current.get().getUnitPrices(products, out);
+    }
+
+    @Override
+    public CatalogSnapshot snapshot() {
+        return current.get();
+    }
+
+    public long getVersion() {
+        return current.get().getVersion();
+    }
+
+    CatalogSnapshot publish(List<Product> products, double[] prices) {
+        while (true) {
+            CatalogSnapshot base = current.get();
+            CatalogSnapshot next = base.apply(products, prices);
+            if (current.compareAndSet(base, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.bundle.BundleManager;
+import dojo.supermarket.model.bundle.CategoryBundle;
+import dojo.supermarket.model.bundle.MixAndMatchEngine;
+import dojo.supermarket.model.bundle.ProductBundle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the offer, bundle and mix-and-match stages with a choice: each product is discounted by
+ * at most one offer, bundle or mix-and-match rule, picked by a {@link DiscountResolver} to save the
+ * customer the most. A mix-and-match rule claims the products whose units it groups into sets.
+ */
+public class BestDiscountStage implements CheckoutStage {
+
+    private final BundleManager bundleManager;
+    private final MixAndMatchEngine mixAndMatchEngine;
+    private final DiscountResolver resolver;
+
+    public BestDiscountStage(BundleManager bundleManager, DiscountResolver resolver) {
+        this(bundleManager, new MixAndMatchEngine(), resolver);
+    }
+
+    public BestDiscountStage(BundleManager bundleManager, MixAndMatchEngine mixAndMatchEngine, DiscountResolver resolver) {
+        this.bundleManager = bundleManager;
+        this.mixAndMatchEngine = mixAndMatchEngine;
+        this.resolver = resolver;
+    }
+
+    @Override
+    public void apply(CheckoutContext context) {
+        List<DiscountResolver.Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < context.getProductCount(); i++) {
+            Discount discount = OfferStage.offerDiscount(context, i);
+            if (discount != null) {
+                candidates.add(new DiscountResolver.Candidate(discount, i));
+            }
+        }
+        for (ProductBundle bundle : BundleStage.applicableBundles(context)) {
+            Discount discount = bundleManager.calculateBundleDiscount(bundle, context.getCartQuantities(), context.getPrices());
+            if (discount == null) {
+                continue;
+            }
+            int[] positions = new int[bundle.getQuantities().size()];
+            int i = 0;
+            for (Product product : bundle.getQuantities().keySet()) {
+                positions[i++] = context.indexOf(product);
+            }
+            candidates.add(new DiscountResolver.Candidate(discount, positions));
+        }
+        addMixAndMatchCandidates(context, candidates);
+
+        for (Discount discount : resolver.resolve(candidates)) {
+            context.addDiscount(discount);
+        }
+    }
+
+    private void addMixAndMatchCandidates(CheckoutContext context, List<DiscountResolver.Candidate> candidates) {
+        if (mixAndMatchEngine.getRules().isEmpty()) {
+            return;
+        }
+        List<Product> products = new ArrayList<>(context.getProductCount());
+        for (int i = 0; i < context.getProductCount(); i++) {
+            products.add(context.getProduct(i));
+        }
+        Map<String, List<Product>> byCategory = mixAndMatchEngine.groupByCategory(products);
+        for (CategoryBundle rule : mixAndMatchEngine.getRules()) {
+            List<Product> members = byCategory.get(rule.getCategoryName());
+            if (members == null) {
+                continue;
+            }
+            List<Product> selected = new ArrayList<>();
+            Discount discount = rule.calculateDiscount(members, context.getCartQuantities(), context.getPrices(), selected);
+            if (discount == null) {
+                continue;
+            }
+            int[] positions = new int[selected.size()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = context.indexOf(selected.get(i));
+            }
+            candidates.add(new DiscountResolver.Candidate(discount, positions));
+        }
+    }
+}
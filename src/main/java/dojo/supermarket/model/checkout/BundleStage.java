@@ -0,0 +1,37 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.bundle.BundleManager;
+import dojo.supermarket.model.bundle.ProductBundle;
+
+import java.util.List;
+
+/**
+ * Applies the discounts of every bundle with a complete set in the cart, in the order they were added.
+ */
+public class BundleStage implements CheckoutStage {
+
+    private final BundleManager bundleManager;
+
+    public BundleStage(BundleManager bundleManager) {
+        this.bundleManager = bundleManager;
+    }
+
+    @Override
+    public void apply(CheckoutContext context) {
+        for (ProductBundle bundle : applicableBundles(context)) {
+            Discount discount = bundleManager.calculateBundleDiscount(bundle, context.getCartQuantities(), context.getPrices());
+            if (discount != null) {
+                context.addDiscount(discount);
+            }
+        }
+    }
+
+    /**
+     * Finds the bundles whose products are all in the cart, in the order they were added.
+     * The cart may still hold too few of a product for a complete set.
+     */
+    static List<ProductBundle> applicableBundles(CheckoutContext context) {
+        return context.getPlan().getBundles().applicableTo(context.getCartQuantities().keySet());
+    }
+}
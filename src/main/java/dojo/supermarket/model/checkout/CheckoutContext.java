@@ -0,0 +1,180 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.DiscountSink;
+import dojo.supermarket.model.Money;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ProductQuantity;
+import dojo.supermarket.model.Receipt;
+import dojo.supermarket.model.ShoppingCart;
+import dojo.supermarket.model.SupermarketCatalog;
+import dojo.supermarket.model.catalog.ResolvedPrices;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-checkout state shared by the stages of a {@link CheckoutPipeline}.
+ *
+ * The cart is read once, up front, into scan lines and distinct products (in first-scan order)
+ * with their total quantities and unit prices. Stages add items and discounts through this
+ * context, and the receipt keeps a running subtotal so no stage has to re-sum it.
+ * The {@link PricingPlan} is pinned for the whole checkout, so every stage sees the same rules.
+ */
+public class CheckoutContext {
+
+    private final Receipt receipt = new Receipt();
+    private final PricingPlan plan;
+    private final Instant checkoutTime;
+    private final Map<Product, Double> cartQuantities;
+    private final long customerId;
+    private final Product[] lineProducts;
+    private final double[] lineQuantities;
+    private final int[] lineProductPositions;
+    private final ResolvedPrices prices;
+    private final double[] quantities;
+
+    /**
+     * Creates a context with no offers or bundles, for exercising stages in isolation.
+     */
+    CheckoutContext(ShoppingCart cart, SupermarketCatalog catalog) {
+        this(cart, catalog, PricingPlan.EMPTY, Instant.now());
+    }
+
+    /**
+     * Creates a context that prices the cart against the catalog and applies the rules in the plan
+     * that are active at the checkout time.
+     */
+    public CheckoutContext(ShoppingCart cart, SupermarketCatalog catalog, PricingPlan plan, Instant checkoutTime) {
+        this.plan = plan;
+        this.checkoutTime = checkoutTime;
+        List<ProductQuantity> items = cart.getItems();
+        int lineCount = items.size();
+        this.cartQuantities = cart.productQuantities();
+        this.customerId = cart.getCustomerId();
+        this.lineProducts = new Product[lineCount];
+        this.lineQuantities = new double[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            ProductQuantity item = items.get(i);
+            lineProducts[i] = item.getProduct();
+            lineQuantities[i] = item.getQuantity();
+        }
+
+        this.prices = ResolvedPrices.resolve(catalog, Arrays.asList(lineProducts));
+        this.quantities = new double[prices.size()];
+        this.lineProductPositions = new int[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            int position = prices.indexOf(lineProducts[i]);
+            lineProductPositions[i] = position;
+            quantities[position] += lineQuantities[i];
+        }
+    }
+
+    public int getLineCount() {
+        return lineProducts.length;
+    }
+
+    public Product getLineProduct(int line) {
+        return lineProducts[line];
+    }
+
+    public double getLineQuantity(int line) {
+        return lineQuantities[line];
+    }
+
+    public double getLineUnitPrice(int line) {
+        return prices.getUnitPrice(lineProductPositions[line]);
+    }
+
+    /**
+     * Gets the number of distinct products in the cart.
+     */
+    public int getProductCount() {
+        return quantities.length;
+    }
+
+    /**
+     * Gets the position of a distinct product in the cart, or -1 if it is not in the cart.
+     */
+    public int indexOf(Product product) {
+        return prices.indexOf(product);
+    }
+
+    public Product getProduct(int position) {
+        return prices.getProduct(position);
+    }
+
+    /**
+     * Gets the total quantity of a distinct product across all of its scan lines.
+     */
+    public double getQuantity(int position) {
+        return quantities[position];
+    }
+
+    public double getUnitPrice(int position) {
+        return prices.getUnitPrice(position);
+    }
+
+    /**
+     * Gets the pricing rules this checkout applies.
+     */
+    public PricingPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Gets the transaction timestamp that decides which scheduled offers apply.
+     */
+    public Instant getCheckoutTime() {
+        return checkoutTime;
+    }
+
+    /**
+     * Gets the prices resolved for this checkout, for APIs that look prices up by product.
+     */
+    public SupermarketCatalog getPrices() {
+        return prices;
+    }
+
+    /**
+     * Gets the cart's total quantity per product, for APIs that take a quantity map.
+     */
+    public Map<Product, Double> getCartQuantities() {
+        return cartQuantities;
+    }
+
+    /**
+     * Gets the customer the cart belongs to, or {@link ShoppingCart#ANONYMOUS}.
+     */
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    public void addItem(Product product, double quantity, double unitPrice, double totalPrice) {
+        receipt.addProduct(product, quantity, unitPrice, totalPrice);
+    }
+
+    public void addDiscount(Discount discount) {
+        receipt.addDiscount(discount);
+    }
+
+    /**
+     * Gets the sink stages emit discounts into without building {@link Discount} objects.
+     */
+    public DiscountSink getDiscountSink() {
+        return receipt;
+    }
+
+    /**
+     * Gets the total of everything added to the receipt so far.
+     */
+    public Money getSubtotal() {
+        return receipt.getTotal();
+    }
+
+    public Receipt getReceipt() {
+        return receipt;
+    }
+}
@@ -0,0 +1,54 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Receipt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable, ordered list of checkout stages run against a single {@link CheckoutContext}.
+ */
+public final class CheckoutPipeline {
+
+    private final List<CheckoutStage> stages;
+
+    public CheckoutPipeline(List<CheckoutStage> stages) {
+        this.stages = List.copyOf(stages);
+    }
+
+    public List<CheckoutStage> getStages() {
+        return stages;
+    }
+
+    /**
+     * Returns a copy of this pipeline with the stage appended at the end.
+     */
+    public CheckoutPipeline with(CheckoutStage stage) {
+        List<CheckoutStage> next = new ArrayList<>(stages);
+        next.add(stage);
+        return new CheckoutPipeline(next);
+    }
+
+    /**
+     * Returns a copy of this pipeline with the stage inserted before the first stage of the given type,
+     * or appended if there is none.
+     */
+    public CheckoutPipeline withBefore(Class<? extends CheckoutStage> type, CheckoutStage stage) {
+        List<CheckoutStage> next = new ArrayList<>(stages);
+        for (int i = 0; i < next.size(); i++) {
+            if (type.isInstance(next.get(i))) {
+                next.add(i, stage);
+                return new CheckoutPipeline(next);
+            }
+        }
+        next.add(stage);
+        return new CheckoutPipeline(next);
+    }
+
+    public Receipt run(CheckoutContext context) {
+        for (CheckoutStage stage : stages) {
+            stage.apply(context);
+        }
+        return context.getReceipt();
+    }
+}
@@ -0,0 +1,322 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.Money;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ProductQuantity;
+import dojo.supermarket.model.Receipt;
+import dojo.supermarket.model.ShoppingCart;
+import dojo.supermarket.model.SupermarketCatalog;
+import dojo.supermarket.model.bundle.BundleManager;
+import dojo.supermarket.model.bundle.CategoryBundle;
+import dojo.supermarket.model.bundle.MixAndMatchEngine;
+import dojo.supermarket.model.bundle.BundleIndex;
+import dojo.supermarket.model.loyalty.LoyaltyProgramManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.BooleanSupplier;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Checkout that is priced one scan at a time, so a lane display can show the total after every scan.
+ *
+ * Each scan only updates the scanned product's line and offer, the bundles and mix-and-match rules
+ * covering that product, and the loyalty discount on the running subtotal. The receipt at the end
+ * equals a full checkout of the same scans by the default pipeline: items in scan order, then offers,
+ * bundles, mix-and-match and loyalty.
+ * Prices, rules and the timestamp that decides which scheduled offers apply are pinned when the session opens.
+ *
+ * The session can be fed directly and ended with {@link #finish()}, or subscribed to a
+ * {@link Flow.Publisher} of scan events, which finishes it when the publisher completes.
+ * Finishing hands the final receipt and customer to the teller, which credits their points and
+ * adds the purchase to their rolling spend.
+ */
+public class CheckoutSession implements Flow.Subscriber<ScanEvent> {
+
+    private static final double QUANTITY_TOLERANCE = 1e-9;
+
+    private final SupermarketCatalog prices;
+    private final PricingPlan plan;
+    private final Instant checkoutTime;
+    private final BundleManager bundleManager;
+    private final List<CategoryBundle> mixAndMatchRules;
+    private final LoyaltyProgramManager loyaltyManager;
+    private final BooleanSupplier loyaltyEnabled;
+    private final ObjLongConsumer<Receipt> onFinish;
+    private final CompletableFuture<Receipt> result = new CompletableFuture<>();
+    private volatile Flow.Subscription subscription;
+
+    private final List<ProductQuantity> lines = new ArrayList<>();
+    private final Map<Product, ProductLine> products = new LinkedHashMap<>();
+    private final Map<Integer, Discount> bundleDiscounts = new TreeMap<>();
+    private final Map<Product, Double> quantities = new HashMap<>();
+    private final Map<Integer, Integer> bundleHits = new HashMap<>();
+    private final Map<String, List<Product>> productsByCategory = new HashMap<>();
+    private final Map<Integer, Discount> mixAndMatchDiscounts = new TreeMap<>();
+    private long itemsTotal;
+    private long offersTotal;
+    private long bundlesTotal;
+    private long mixAndMatchTotal;
+    private Discount loyaltyDiscount;
+    private long customerId = ShoppingCart.ANONYMOUS;
+    private Receipt finalReceipt;
+
+    public CheckoutSession(SupermarketCatalog prices, PricingPlan plan, Instant checkoutTime,
+                           BundleManager bundleManager, MixAndMatchEngine mixAndMatchEngine,
+                           LoyaltyProgramManager loyaltyManager, BooleanSupplier loyaltyEnabled) {
+        this(prices, plan, checkoutTime, bundleManager, mixAndMatchEngine, loyaltyManager, loyaltyEnabled,
+            (receipt, customerId) -> { });
+    }
+
+    /**
+     * Creates a session that passes its final receipt and customer id to {@code onFinish} when it finishes.
+     */
+    public CheckoutSession(SupermarketCatalog prices, PricingPlan plan, Instant checkoutTime,
+                           BundleManager bundleManager, MixAndMatchEngine mixAndMatchEngine,
+                           LoyaltyProgramManager loyaltyManager, BooleanSupplier loyaltyEnabled,
+                           ObjLongConsumer<Receipt> onFinish) {
+        this.prices = prices;
+        this.plan = plan;
+        this.checkoutTime = checkoutTime;
+        this.bundleManager = bundleManager;
+        this.mixAndMatchRules = List.copyOf(mixAndMatchEngine.getRules());
+        this.loyaltyManager = loyaltyManager;
+        this.loyaltyEnabled = loyaltyEnabled;
+        this.onFinish = onFinish;
+    }
+
+    public void add(Product product, double quantity) {
+        scan(ScanEvent.add(product, quantity));
+    }
+
+    public void voidItem(Product product, double quantity) {
+        scan(ScanEvent.voidItem(product, quantity));
+    }
+
+    /**
+     * Identifies the customer, typically when their loyalty card is scanned, and reprices the loyalty discount.
+     */
+    public synchronized void identifyCustomer(long customerId) {
+        if (finalReceipt != null) {
+            throw new IllegalStateException("Checkout session has already finished");
+        }
+        this.customerId = customerId;
+        updateLoyalty();
+    }
+
+    public synchronized long getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Applies one scan and updates the running total.
+     *
+     * @throws IllegalArgumentException if the product is not in the catalog, or a void removes more than was scanned
+     * @throws IllegalStateException if the session has finished
+     */
+    public synchronized void scan(ScanEvent event) {
+        if (finalReceipt != null) {
+            throw new IllegalStateException("Checkout session has already finished");
+        }
+        Product product = event.getProduct();
+        double quantity = event.getSignedQuantity();
+        ProductLine line = products.get(product);
+        double scanned = line != null ? line.quantity : 0;
+        // Tolerates the rounding left by voiding fractional weights one scan at a time
+        if (quantity < 0 && scanned + quantity < -QUANTITY_TOLERANCE) {
+            throw new IllegalArgumentException("Cannot void " + -quantity + " of " + product.getName()
+                + ", only " + scanned + " scanned");
+        }
+        boolean firstScan = line == null;
+        if (firstScan) {
+            PricingPlan.Entry rules = plan.getEntry(product);
+            line = new ProductLine(prices.getUnitPrice(product), rules != null ? rules.getOffer(checkoutTime) : null);
+            products.put(product, line);
+        }
+
+        lines.add(new ProductQuantity(product, quantity));
+        itemsTotal += Money.toMinorUnits(quantity * line.unitPrice);
+
+        line.quantity += quantity;
+        quantities.put(product, line.quantity);
+        if (line.offer != null) {
+            offersTotal -= line.offerTotal();
+            line.offerDiscount = line.offer.getStrategy().calculateDiscount(
+                product, line.quantity, line.unitPrice, line.offer.getArgument());
+            offersTotal += line.offerTotal();
+        }
+
+        // Only bundles containing the scanned product can change; presence never drops, as a void keeps the product
+        BundleIndex bundles = plan.getBundles();
+        for (int index : bundles.bundlesOf(product)) {
+            int hits = firstScan ? bundleHits.merge(index, 1, Integer::sum) : bundleHits.get(index);
+            if (hits == bundles.getDistinctSize(index)) {
+                Discount previous = bundleDiscounts.remove(index);
+                bundlesTotal -= previous != null ? previous.getDiscountMinorUnits() : 0;
+                Discount discount = bundleManager.calculateBundleDiscount(bundles.getBundle(index), quantities, prices);
+                if (discount != null) {
+                    bundleDiscounts.put(index, discount);
+                    bundlesTotal += discount.getDiscountMinorUnits();
+                }
+            }
+        }
+
+        updateMixAndMatch(product, firstScan);
+        updateLoyalty();
+    }
+
+    private void updateMixAndMatch(Product product, boolean firstScan) {
+        if (mixAndMatchRules.isEmpty() || product.getCategory() == null) {
+            return;
+        }
+        String category = product.getCategory().getCategoryName();
+        if (firstScan) {
+            productsByCategory.computeIfAbsent(category, c -> new ArrayList<>()).add(product);
+        }
+        for (int i = 0; i < mixAndMatchRules.size(); i++) {
+            CategoryBundle rule = mixAndMatchRules.get(i);
+            if (rule.getCategoryName().equals(category)) {
+                Discount previous = mixAndMatchDiscounts.remove(i);
+                mixAndMatchTotal -= previous != null ? previous.getDiscountMinorUnits() : 0;
+                Discount discount = rule.calculateDiscount(productsByCategory.get(category), quantities, prices);
+                if (discount != null) {
+                    mixAndMatchDiscounts.put(i, discount);
+                    mixAndMatchTotal += discount.getDiscountMinorUnits();
+                }
+            }
+        }
+    }
+
+    private void updateLoyalty() {
+        loyaltyDiscount = null;
+        if (loyaltyEnabled.getAsBoolean() && !lines.isEmpty()) {
+            Money subtotal = Money.ofMinorUnits(itemsTotal + offersTotal + bundlesTotal + mixAndMatchTotal);
+            loyaltyDiscount = loyaltyManager.calculateLoyaltyDiscount(subtotal, lines.get(0).getProduct(), customerId,
+                checkoutTime);
+        }
+    }
+
+    /**
+     * Gets the total to pay for everything scanned so far, including all discounts.
+     */
+    public synchronized Money getTotal() {
+        long loyalty = loyaltyDiscount != null ? loyaltyDiscount.getDiscountMinorUnits() : 0;
+        return Money.ofMinorUnits(itemsTotal + offersTotal + bundlesTotal + mixAndMatchTotal + loyalty);
+    }
+
+    public synchronized int getLineCount() {
+        return lines.size();
+    }
+
+    /**
+     * Builds the receipt for everything scanned so far.
+     */
+    public synchronized Receipt getReceipt() {
+        Receipt receipt = new Receipt();
+        for (ProductQuantity line : lines) {
+            double unitPrice = products.get(line.getProduct()).unitPrice;
+            receipt.addProduct(line.getProduct(), line.getQuantity(), unitPrice, line.getQuantity() * unitPrice);
+        }
+        for (ProductLine line : products.values()) {
+            if (line.offerDiscount != null) {
+                receipt.addDiscount(line.offerDiscount);
+            }
+        }
+        for (Discount discount : bundleDiscounts.values()) {
+            receipt.addDiscount(discount);
+        }
+        for (Discount discount : mixAndMatchDiscounts.values()) {
+            receipt.addDiscount(discount);
+        }
+        if (loyaltyDiscount != null) {
+            receipt.addDiscount(loyaltyDiscount);
+        }
+        return receipt;
+    }
+
+    /**
+     * Ends the checkout: builds the final receipt, hands it to the teller with the customer id,
+     * and completes {@link #getResult()}. Later calls return the same receipt.
+     */
+    public Receipt finish() {
+        Receipt receipt;
+        long customer;
+        synchronized (this) {
+            if (finalReceipt != null) {
+                return finalReceipt;
+            }
+            receipt = getReceipt();
+            customer = customerId;
+            finalReceipt = receipt;
+        }
+        try {
+            onFinish.accept(receipt, customer);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            throw e;
+        }
+        result.complete(receipt);
+        return receipt;
+    }
+
+    /**
+     * Gets the final receipt, completed when the session finishes.
+     */
+    public CompletableFuture<Receipt> getResult() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(ScanEvent event) {
+        try {
+            scan(event);
+        } catch (RuntimeException e) {
+            subscription.cancel();
+            result.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            finish();
+        } catch (RuntimeException e) {
+            // Already reported through the result
+        }
+    }
+
+    private static class ProductLine {
+        final double unitPrice;
+        final PricingPlan.CompiledOffer offer;
+        double quantity;
+        Discount offerDiscount;
+
+        ProductLine(double unitPrice, PricingPlan.CompiledOffer offer) {
+            this.unitPrice = unitPrice;
+            this.offer = offer;
+        }
+
+        long offerTotal() {
+            return offerDiscount != null ? offerDiscount.getDiscountMinorUnits() : 0;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package dojo.supermarket.model.checkout;
+
+/**
+ * One step of a checkout, such as pricing items or applying offers.
+ * New pricing rules are added as new stages without modifying the existing ones.
+ */
+public interface CheckoutStage {
+
+    /**
+     * Adds this stage's items or discounts to the checkout.
+     */
+    void apply(CheckoutContext context);
+}
@@ -0,0 +1,256 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Discount;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Picks the set of discounts that saves the customer the most, such that no product is
+ * discounted by more than one of them.
+ *
+ * Candidates that share a product are grouped into independent conflict groups; each group is
+ * solved exactly by branch-and-bound, seeded with the greedy answer. If the search runs past the
+ * time budget, the best answer found so far is used, which is never worse than greedy.
+ * The search keeps its own stack, so a group of any size is searched without deep recursion.
+ */
+public final class DiscountResolver {
+
+    private static final int NODES_PER_CLOCK_CHECK = 1024;
+
+    private final long budgetNanos;
+
+    public DiscountResolver(Duration exactSearchBudget) {
+        this.budgetNanos = exactSearchBudget.toNanos();
+    }
+
+    /**
+     * Returns the chosen discounts in the order their candidates were given.
+     */
+    public List<Discount> resolve(List<Candidate> candidates) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int productCount = 0;
+        for (Candidate candidate : candidates) {
+            for (int product : candidate.products) {
+                productCount = Math.max(productCount, product + 1);
+            }
+        }
+
+        // Union the products of each candidate, so each group can be solved on its own
+        int[] parent = new int[productCount];
+        for (int i = 0; i < productCount; i++) {
+            parent[i] = i;
+        }
+        for (Candidate candidate : candidates) {
+            for (int product : candidate.products) {
+                parent[find(parent, product)] = find(parent, candidate.products[0]);
+            }
+        }
+        List<List<Integer>> groups = new ArrayList<>();
+        int[] groupOfRoot = new int[productCount];
+        Arrays.fill(groupOfRoot, -1);
+        for (int i = 0; i < candidates.size(); i++) {
+            Candidate candidate = candidates.get(i);
+            if (candidate.getSavings() <= 0 || candidate.products.length == 0) {
+                continue;
+            }
+            int root = find(parent, candidate.products[0]);
+            if (groupOfRoot[root] < 0) {
+                groupOfRoot[root] = groups.size();
+                groups.add(new ArrayList<>());
+            }
+            groups.get(groupOfRoot[root]).add(i);
+        }
+
+        boolean[] chosen = new boolean[candidates.size()];
+        boolean[] used = new boolean[productCount];
+        for (List<Integer> group : groups) {
+            if (group.size() == 1) {
+                chosen[group.get(0)] = true;
+            } else {
+                new Search(candidates, group, used, deadline).solve(chosen);
+            }
+        }
+
+        List<Discount> result = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (chosen[i]) {
+                result.add(candidates.get(i).discount);
+            }
+        }
+        return result;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * A discount that could be applied, with the positions of the products it uses.
+     */
+    public static final class Candidate {
+
+        private final Discount discount;
+        private final int[] products;
+
+        public Candidate(Discount discount, int... products) {
+            this.discount = discount;
+            this.products = products;
+        }
+
+        public Discount getDiscount() {
+            return discount;
+        }
+
+        /**
+         * Gets how much the customer saves, in minor units.
+         */
+        public long getSavings() {
+            return -discount.getDiscountMinorUnits();
+        }
+    }
+
+    private static final class Search {
+
+        private static final int ENTER = 0;
+        private static final int WITHOUT = 1;
+        private static final int DONE = 2;
+
+        private final int[][] products;
+        private final long[] savings;
+        private final long[] remaining;
+        private final int[] candidateIndex;
+        private final boolean[] used;
+        private final long deadline;
+        private final boolean[] current;
+        private boolean[] best;
+        private long bestValue;
+        private long nodes;
+        private boolean timedOut;
+
+        Search(List<Candidate> candidates, List<Integer> group, boolean[] used, long deadline) {
+            Integer[] order = group.toArray(new Integer[0]);
+            Arrays.sort(order, Comparator.comparingLong((Integer i) -> candidates.get(i).getSavings()).reversed());
+            int n = order.length;
+            this.products = new int[n][];
+            this.savings = new long[n];
+            this.remaining = new long[n + 1];
+            this.candidateIndex = new int[n];
+            for (int i = 0; i < n; i++) {
+                candidateIndex[i] = order[i];
+                products[i] = candidates.get(order[i]).products;
+                savings[i] = candidates.get(order[i]).getSavings();
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                remaining[i] = remaining[i + 1] + savings[i];
+            }
+            this.used = used;
+            this.deadline = deadline;
+            this.current = new boolean[n];
+        }
+
+        void solve(boolean[] chosen) {
+            greedy();
+            if (System.nanoTime() < deadline) {
+                search();
+            }
+            for (int i = 0; i < best.length; i++) {
+                chosen[candidateIndex[i]] = best[i];
+            }
+        }
+
+        private void greedy() {
+            best = new boolean[savings.length];
+            for (int i = 0; i < savings.length; i++) {
+                if (fits(i)) {
+                    mark(i, true);
+                    best[i] = true;
+                    bestValue += savings[i];
+                }
+            }
+            for (int i = 0; i < savings.length; i++) {
+                if (best[i]) {
+                    mark(i, false);
+                }
+            }
+        }
+
+        /**
+         * Depth-first search deciding candidate i at depth i: first with it, if it fits, then without it.
+         * Each depth's next branch and running value are kept in arrays instead of on the call stack.
+         */
+        private void search() {
+            int n = savings.length;
+            int[] branch = new int[n + 1];
+            long[] values = new long[n + 1];
+            int i = 0;
+            while (i >= 0) {
+                if (branch[i] == ENTER) {
+                    if (timedOut || (++nodes % NODES_PER_CLOCK_CHECK == 0 && (timedOut = System.nanoTime() > deadline))) {
+                        unmarkCurrent();
+                        return;
+                    }
+                    long value = values[i];
+                    if (value > bestValue) {
+                        bestValue = value;
+                        best = current.clone();
+                    }
+                    if (i == n || value + remaining[i] <= bestValue) {
+                        i--;
+                        continue;
+                    }
+                    branch[i] = WITHOUT;
+                    if (fits(i)) {
+                        mark(i, true);
+                        current[i] = true;
+                        values[i + 1] = value + savings[i];
+                        branch[++i] = ENTER;
+                        continue;
+                    }
+                }
+                if (branch[i] == WITHOUT) {
+                    if (current[i]) {
+                        current[i] = false;
+                        mark(i, false);
+                    }
+                    branch[i] = DONE;
+                    values[i + 1] = values[i];
+                    branch[++i] = ENTER;
+                    continue;
+                }
+                i--;
+            }
+        }
+
+        private void unmarkCurrent() {
+            for (int i = 0; i < current.length; i++) {
+                if (current[i]) {
+                    current[i] = false;
+                    mark(i, false);
+                }
+            }
+        }
+
+        private boolean fits(int i) {
+            for (int product : products[i]) {
+                if (used[product]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void mark(int i, boolean value) {
+            for (int product : products[i]) {
+                used[product] = value;
+            }
+        }
+    }
+}
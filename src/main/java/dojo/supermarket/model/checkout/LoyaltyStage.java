@@ -0,0 +1,28 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.loyalty.LoyaltyProgramManager;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Applies the loyalty discount on the running subtotal, while the loyalty program is enabled.
+ */
+public class LoyaltyStage implements CheckoutStage {
+
+    private final LoyaltyProgramManager loyaltyManager;
+    private final BooleanSupplier enabled;
+
+    public LoyaltyStage(LoyaltyProgramManager loyaltyManager, BooleanSupplier enabled) {
+        this.loyaltyManager = loyaltyManager;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void apply(CheckoutContext context) {
+        if (!enabled.getAsBoolean() || context.getLineCount() == 0) {
+            return;
+        }
+        loyaltyManager.emitLoyaltyDiscount(context.getSubtotal(), context.getLineProduct(0), context.getCustomerId(),
+            context.getCheckoutTime(), context.getDiscountSink());
+    }
+}
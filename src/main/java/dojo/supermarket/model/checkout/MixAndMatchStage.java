@@ -0,0 +1,34 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.bundle.MixAndMatchEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies the category-wide mix-and-match bundles.
+ */
+public class MixAndMatchStage implements CheckoutStage {
+
+    private final MixAndMatchEngine engine;
+
+    public MixAndMatchStage(MixAndMatchEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public void apply(CheckoutContext context) {
+        if (engine.getRules().isEmpty()) {
+            return;
+        }
+        List<Product> products = new ArrayList<>(context.getProductCount());
+        for (int i = 0; i < context.getProductCount(); i++) {
+            products.add(context.getProduct(i));
+        }
+        for (Discount discount : engine.calculateDiscounts(products, context.getCartQuantities(), context.getPrices())) {
+            context.addDiscount(discount);
+        }
+    }
+}
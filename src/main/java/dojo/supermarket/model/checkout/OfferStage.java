@@ -0,0 +1,39 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Discount;
+
+/**
+ * Applies the special offer compiled into the plan for each distinct product in the cart,
+ * as it stands at the checkout time.
+ */
+public class OfferStage implements CheckoutStage {
+
+    @Override
+    public void apply(CheckoutContext context) {
+        for (int i = 0; i < context.getProductCount(); i++) {
+            PricingPlan.CompiledOffer offer = offerAt(context, i);
+            if (offer != null) {
+                offer.getStrategy().emitDiscount(context.getProduct(i), context.getQuantity(i),
+                    context.getUnitPrice(i), offer.getArgument(), context.getDiscountSink());
+            }
+        }
+    }
+
+    /**
+     * Calculates the offer discount for the distinct product at the given position, or null if there is none.
+     */
+    static Discount offerDiscount(CheckoutContext context, int position) {
+        PricingPlan.CompiledOffer offer = offerAt(context, position);
+        if (offer == null) {
+            return null;
+        }
+        // Use Strategy Pattern instead of if-else chain
+        return offer.getStrategy().calculateDiscount(
+            context.getProduct(position), context.getQuantity(position), context.getUnitPrice(position), offer.getArgument());
+    }
+
+    private static PricingPlan.CompiledOffer offerAt(CheckoutContext context, int position) {
+        PricingPlan.Entry entry = context.getPlan().getEntry(context.getProduct(position));
+        return entry != null ? entry.getOffer(context.getCheckoutTime()) : null;
+    }
+}
@@ -0,0 +1,211 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Offer;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ScheduledOffer;
+import dojo.supermarket.model.bundle.BundleIndex;
+import dojo.supermarket.model.bundle.ProductBundle;
+import dojo.supermarket.model.offer.OfferStrategy;
+import dojo.supermarket.model.offer.OfferStrategyFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Immutable per-product view of a teller's pricing rules, compiled once per rule change.
+ *
+ * Each product with an offer has one {@link Entry} holding its offer strategy, already resolved from
+ * the {@link OfferStrategyFactory}, and the offer argument. Bundles are matched through a pinned
+ * {@link BundleIndex}. Products interned in a {@link dojo.supermarket.model.ProductRegistry} are
+ * found by id with an array lookup; other products fall back to a hash lookup.
+ *
+ * Scheduled offers are compiled into a per-product timeline of non-overlapping segments, so the
+ * offer active at a checkout's timestamp is found by binary search and promotions start and end
+ * without recompiling the plan.
+ */
+public final class PricingPlan {
+
+    public static final PricingPlan EMPTY = compile(List.of(), List.of(), 0);
+
+    private static final Instant[] NO_BOUNDARIES = new Instant[0];
+
+    private final Entry[] entriesById;
+    private final Map<Product, Entry> entries;
+    private final BundleIndex bundles;
+    private final long rulesVersion;
+
+    private PricingPlan(Entry[] entriesById, Map<Product, Entry> entries, BundleIndex bundles, long rulesVersion) {
+        this.entriesById = entriesById;
+        this.entries = entries;
+        this.bundles = bundles;
+        this.rulesVersion = rulesVersion;
+    }
+
+    /**
+     * Compiles offers and bundles into a plan, tagged with the version of the rules it was built from.
+     *
+     * @throws IllegalArgumentException if an offer type has no registered strategy
+     */
+    public static PricingPlan compile(Collection<Offer> offers, List<ProductBundle> bundles, long rulesVersion) {
+        return compile(offers, List.of(), BundleIndex.build(bundles), rulesVersion);
+    }
+
+    /**
+     * Compiles always-on offers, scheduled offers and bundles into a plan.
+     * Where scheduled offers for one product overlap, the one listed last wins.
+     *
+     * @throws IllegalArgumentException if an offer type has no registered strategy
+     */
+    public static PricingPlan compile(Collection<Offer> offers, Collection<ScheduledOffer> scheduledOffers,
+                                      BundleIndex bundles, long rulesVersion) {
+        Map<Product, EntryBuilder> builders = new LinkedHashMap<>();
+        for (Offer offer : offers) {
+            builders.computeIfAbsent(offer.getProduct(), p -> new EntryBuilder()).offer = offer;
+        }
+        for (ScheduledOffer scheduled : scheduledOffers) {
+            builders.computeIfAbsent(scheduled.getProduct(), p -> new EntryBuilder()).scheduled.add(scheduled);
+        }
+
+        int maxId = -1;
+        for (Product product : builders.keySet()) {
+            maxId = Math.max(maxId, product.getId());
+        }
+        Entry[] byId = new Entry[maxId + 1];
+        Map<Product, Entry> entries = new HashMap<>();
+        for (Map.Entry<Product, EntryBuilder> builder : builders.entrySet()) {
+            Entry entry = builder.getValue().build();
+            entries.put(builder.getKey(), entry);
+            if (builder.getKey().getId() >= 0) {
+                byId[builder.getKey().getId()] = entry;
+            }
+        }
+        return new PricingPlan(byId, entries, bundles, rulesVersion);
+    }
+
+    /**
+     * Gets the offers for a product, or null if it has none.
+     */
+    public Entry getEntry(Product product) {
+        int id = product.getId();
+        if (id >= 0) {
+            Entry entry = id < entriesById.length ? entriesById[id] : null;
+            // An interned product can still equal a rule product that was not interned, or interned elsewhere
+            return entry != null ? entry : entries.get(product);
+        }
+        return entries.get(product);
+    }
+
+    public BundleIndex getBundles() {
+        return bundles;
+    }
+
+    public long getRulesVersion() {
+        return rulesVersion;
+    }
+
+    /**
+     * An offer with its strategy resolved.
+     */
+    public static final class CompiledOffer {
+
+        private final Offer offer;
+        private final OfferStrategy strategy;
+
+        private CompiledOffer(Offer offer) {
+            this.offer = offer;
+            this.strategy = OfferStrategyFactory.getStrategy(offer.getOfferType());
+        }
+
+        public Offer getOffer() {
+            return offer;
+        }
+
+        public OfferStrategy getStrategy() {
+            return strategy;
+        }
+
+        public double getArgument() {
+            return offer.getArgument();
+        }
+    }
+
+    /**
+     * Compiled rules for one product.
+     */
+    public static final class Entry {
+
+        private final CompiledOffer offer;
+        private final Instant[] boundaries;
+        private final CompiledOffer[] segments;
+
+        private Entry(CompiledOffer offer, Instant[] boundaries, CompiledOffer[] segments) {
+            this.offer = offer;
+            this.boundaries = boundaries;
+            this.segments = segments;
+        }
+
+        /**
+         * Checks if the product has an always-on or scheduled offer.
+         */
+        public boolean hasOffer() {
+            return offer != null || boundaries.length > 0;
+        }
+
+        /**
+         * Gets the always-on offer, or null if there is none.
+         */
+        public CompiledOffer getOffer() {
+            return offer;
+        }
+
+        /**
+         * Gets the offer active at the given instant: a scheduled offer if one is running,
+         * otherwise the always-on offer, or null if neither applies.
+         */
+        public CompiledOffer getOffer(Instant at) {
+            if (boundaries.length == 0) {
+                return offer;
+            }
+            int position = Arrays.binarySearch(boundaries, at);
+            // Segment i runs from boundaries[i] up to boundaries[i + 1]
+            int segment = position >= 0 ? position : -position - 2;
+            CompiledOffer scheduled = segment >= 0 ? segments[segment] : null;
+            return scheduled != null ? scheduled : offer;
+        }
+    }
+
+    private static final class EntryBuilder {
+        Offer offer;
+        final List<ScheduledOffer> scheduled = new ArrayList<>();
+
+        Entry build() {
+            Instant[] boundaries = NO_BOUNDARIES;
+            CompiledOffer[] segments = null;
+            if (!scheduled.isEmpty()) {
+                TreeSet<Instant> instants = new TreeSet<>();
+                for (ScheduledOffer s : scheduled) {
+                    instants.add(s.getFrom());
+                    instants.add(s.getUntil());
+                }
+                boundaries = instants.toArray(NO_BOUNDARIES);
+                segments = new CompiledOffer[boundaries.length];
+                Map<Offer, CompiledOffer> compiled = new HashMap<>();
+                for (int i = 0; i < boundaries.length; i++) {
+                    for (ScheduledOffer s : scheduled) {
+                        if (s.isActiveAt(boundaries[i])) {
+                            segments[i] = compiled.computeIfAbsent(s.getOffer(), CompiledOffer::new);
+                        }
+                    }
+                }
+            }
+            return new Entry(offer != null ? new CompiledOffer(offer) : null, boundaries, segments);
+        }
+    }
+}
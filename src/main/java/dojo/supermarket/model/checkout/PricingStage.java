@@ -0,0 +1,16 @@
+package dojo.supermarket.model.checkout;
+
+/**
+ * Adds one receipt item per scan line, priced from the checkout's resolved prices.
+ */
+public class PricingStage implements CheckoutStage {
+
+    @Override
+    public void apply(CheckoutContext context) {
+        for (int line = 0; line < context.getLineCount(); line++) {
+            double quantity = context.getLineQuantity(line);
+            double unitPrice = context.getLineUnitPrice(line);
+            context.addItem(context.getLineProduct(line), quantity, unitPrice, quantity * unitPrice);
+        }
+    }
+}
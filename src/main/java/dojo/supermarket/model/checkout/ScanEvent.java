@@ -0,0 +1,55 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Product;
+
+/**
+ * One scan at a checkout lane: an item added to the basket, or a previous scan voided.
+ */
+public final class ScanEvent {
+
+    public enum Type {
+        ADD,
+        VOID
+    }
+
+    private final Type type;
+    private final Product product;
+    private final double quantity;
+
+    private ScanEvent(Type type, Product product, double quantity) {
+        this.type = type;
+        this.product = product;
+        this.quantity = quantity;
+    }
+
+    public static ScanEvent add(Product product, double quantity) {
+        return new ScanEvent(Type.ADD, product, quantity);
+    }
+
+    /**
+     * Voids a quantity of a product that was scanned earlier.
+     * It shows on the receipt as a line with a negative quantity.
+     */
+    public static ScanEvent voidItem(Product product, double quantity) {
+        return new ScanEvent(Type.VOID, product, quantity);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public double getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Gets the quantity as it appears on the receipt, negative for a void.
+     */
+    public double getSignedQuantity() {
+        return type == Type.VOID ? -quantity : quantity;
+    }
+}
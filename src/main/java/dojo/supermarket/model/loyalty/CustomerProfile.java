@@ -0,0 +1,32 @@
+package dojo.supermarket.model.loyalty;
+
+/**
+ * What the profile store knows about a loyalty member: the tier they hold and their points balance.
+ */
+public final class CustomerProfile {
+
+    private final long customerId;
+    private final String tierName;
+    private final long pointsBalance;
+
+    public CustomerProfile(long customerId, String tierName, long pointsBalance) {
+        this.customerId = customerId;
+        this.tierName = tierName;
+        this.pointsBalance = pointsBalance;
+    }
+
+    public long getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Gets the name of the tier the member holds, or null if they hold none beyond what their basket earns.
+     */
+    public String getTierName() {
+        return tierName;
+    }
+
+    public long getPointsBalance() {
+        return pointsBalance;
+    }
+}
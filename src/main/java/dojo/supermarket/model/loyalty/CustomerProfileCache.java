@@ -0,0 +1,310 @@
+package dojo.supermarket.model.loyalty;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory cache of customer profiles in front of a {@link CustomerProfileStore}.
+ *
+ * Eviction follows W-TinyLFU: new profiles enter a small LRU window, and a profile leaving the window
+ * only displaces the least recently used profile of the main area if it has been requested more often,
+ * according to a {@link FrequencySketch}. The main area is a segmented LRU, split into a probation and a
+ * protected part, so the daily active members stay cached while one-off lookups pass through.
+ *
+ * Hits never lock: they read a concurrent map and record the access in a small lossy ring buffer, which
+ * is replayed into the eviction policy whenever its lock is free. Concurrent misses for one customer
+ * share a single load from the store. Unknown customers are not cached.
+ */
+public class CustomerProfileCache {
+
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int DRAIN_THRESHOLD = READ_BUFFER_SIZE / 4;
+
+    private static final byte WINDOW = 1;
+    private static final byte PROBATION = 2;
+    private static final byte PROTECTED = 3;
+    private static final byte REMOVED = 0;
+
+    private final CustomerProfileStore store;
+    private final int maximumSize;
+    private final int maxWindow;
+    private final int maxProtected;
+    private final Map<Long, Node> data = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<CustomerProfile>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicReferenceArray<Node> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readsRecorded = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Guarded by policyLock; the lock is package-private so tests can hold it
+    final ReentrantLock policyLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessOrder window = new AccessOrder();
+    private final AccessOrder probation = new AccessOrder();
+    private final AccessOrder protectedArea = new AccessOrder();
+    private volatile long readsDrained;
+
+    public CustomerProfileCache(CustomerProfileStore store, int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+        }
+        this.store = store;
+        this.maximumSize = maximumSize;
+        this.maxWindow = Math.max(1, maximumSize / 100);
+        this.maxProtected = (int) ((maximumSize - maxWindow) * 0.8);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Gets a customer's profile, loading it from the store on a miss, or returns null if the store does not know them.
+     */
+    public CustomerProfile get(long customerId) {
+        Node node = data.get(customerId);
+        if (node != null) {
+            hits.increment();
+            recordRead(node);
+            return node.profile;
+        }
+        misses.increment();
+        return load(customerId);
+    }
+
+    /**
+     * Drops a customer's profile, for example after their tier changes, so the next lookup reloads it.
+     * A load already in flight still answers its callers, but what it read is not cached.
+     */
+    public void invalidate(long customerId) {
+        // Under the policy lock, so a load cannot pass its check in insert and cache its profile after this
+        policyLock.lock();
+        try {
+            loading.remove(customerId);
+            Node node = data.remove(customerId);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private CustomerProfile load(long customerId) {
+        CompletableFuture<CustomerProfile> mine = new CompletableFuture<>();
+        CompletableFuture<CustomerProfile> inFlight = loading.putIfAbsent(customerId, mine);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            CustomerProfile profile = store.load(customerId);
+            if (profile != null) {
+                insert(customerId, profile, mine);
+            }
+            mine.complete(profile);
+            return profile;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(customerId, mine);
+        }
+    }
+
+    private void recordRead(Node node) {
+        long recorded = readsRecorded.getAndIncrement();
+        readBuffer.lazySet((int) (recorded & READ_BUFFER_MASK), node);
+        if (recorded - readsDrained >= DRAIN_THRESHOLD && policyLock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Caches a loaded profile, unless the load was invalidated while it ran. The check and the insert
+     * happen under the policy lock, which invalidate also holds, so an invalidation falls wholly before or after.
+     */
+    private void insert(long customerId, CustomerProfile profile, CompletableFuture<CustomerProfile> load) {
+        policyLock.lock();
+        try {
+            if (loading.get(customerId) != load) {
+                return;
+            }
+            drainReads();
+            Node node = new Node(customerId, profile);
+            Node previous = data.put(customerId, node);
+            if (previous != null) {
+                unlink(previous);
+            }
+            sketch.increment(customerId);
+            node.area = WINDOW;
+            window.addLast(node);
+            evict();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Replays buffered hits into the policy. Hits that were overwritten before a drain are lost,
+     * which only makes the recency order slightly less exact.
+     */
+    private void drainReads() {
+        long recorded = readsRecorded.get();
+        long from = Math.max(readsDrained, recorded - READ_BUFFER_SIZE);
+        for (long i = from; i < recorded; i++) {
+            Node node = readBuffer.getAndSet((int) (i & READ_BUFFER_MASK), null);
+            if (node != null) {
+                onAccess(node);
+            }
+        }
+        readsDrained = recorded;
+    }
+
+    private void onAccess(Node node) {
+        sketch.increment(node.customerId);
+        switch (node.area) {
+            case WINDOW -> window.moveToLast(node);
+            case PROBATION -> {
+                probation.remove(node);
+                node.area = PROTECTED;
+                protectedArea.addLast(node);
+                if (protectedArea.size > maxProtected) {
+                    Node demoted = protectedArea.removeFirst();
+                    demoted.area = PROBATION;
+                    probation.addLast(demoted);
+                }
+            }
+            case PROTECTED -> protectedArea.moveToLast(node);
+            default -> {
+                // Evicted or invalidated since the hit
+            }
+        }
+    }
+
+    private void evict() {
+        Node candidate = null;
+        while (window.size > maxWindow) {
+            candidate = window.removeFirst();
+            candidate.area = PROBATION;
+            probation.addLast(candidate);
+        }
+        while (window.size + probation.size + protectedArea.size > maximumSize) {
+            Node victim = probation.first;
+            if (victim == null) {
+                victim = protectedArea.first != null ? protectedArea.first : window.first;
+            } else if (candidate != null && candidate != victim && candidate.area == PROBATION) {
+                // Admit the newcomer only if it is requested more often than the profile it would displace
+                if (sketch.frequency(candidate.customerId) <= sketch.frequency(victim.customerId)) {
+                    victim = candidate;
+                }
+                candidate = null;
+            }
+            unlink(victim);
+            data.remove(victim.customerId, victim);
+        }
+    }
+
+    private void unlink(Node node) {
+        switch (node.area) {
+            case WINDOW -> window.remove(node);
+            case PROBATION -> probation.remove(node);
+            case PROTECTED -> protectedArea.remove(node);
+            default -> {
+                return;
+            }
+        }
+        node.area = REMOVED;
+    }
+
+    private static final class Node {
+        final long customerId;
+        final CustomerProfile profile;
+        byte area;
+        Node previous;
+        Node next;
+
+        Node(long customerId, CustomerProfile profile) {
+            this.customerId = customerId;
+            this.profile = profile;
+        }
+    }
+
+    /**
+     * Doubly linked list from least to most recently used.
+     */
+    private static final class AccessOrder {
+        Node first;
+        Node last;
+        int size;
+
+        void addLast(Node node) {
+            node.previous = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            size++;
+        }
+
+        Node removeFirst() {
+            Node node = first;
+            remove(node);
+            return node;
+        }
+
+        void remove(Node node) {
+            if (node.previous == null) {
+                first = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(Node node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+}
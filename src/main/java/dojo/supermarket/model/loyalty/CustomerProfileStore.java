@@ -0,0 +1,14 @@
+package dojo.supermarket.model.loyalty;
+
+/**
+ * Source of record for customer profiles, such as the membership database.
+ * Implementations may be slow; {@link CustomerProfileCache} keeps the active members in memory.
+ */
+@FunctionalInterface
+public interface CustomerProfileStore {
+
+    /**
+     * Loads a customer's profile, or returns null if the customer is unknown.
+     */
+    CustomerProfile load(long customerId);
+}
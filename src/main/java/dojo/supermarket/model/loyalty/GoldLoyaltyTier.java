@@ -21,8 +21,8 @@ public class GoldLoyaltyTier implements LoyaltyProgram {
     }
 
     @Override
-    public boolean isApplicable(double totalAmount) {
-        return totalAmount >= 50.0;
+    public double getQualifyingAmount() {
+        return 50.0;
     }
 }
 
@@ -0,0 +1,278 @@
+package dojo.supermarket.model.loyalty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * Per-customer loyalty points, kept in an append-only log that is memory-mapped in fixed-size segments.
+ *
+ * Every posting is one 32-byte record (customer id, points, timestamp, marker, CRC32C checksum).
+ * Lanes reserve their record slot with a single atomic add and write it in place, so concurrent
+ * postings never share a lock. A committer thread forces the written range to disk and then completes
+ * every posting that was waiting on it, so one disk flush covers all lanes that posted meanwhile.
+ *
+ * Balances are held in memory and rebuilt by replaying the log when the ledger is opened. Records that
+ * fail their checksum, such as one torn by a crash mid-write, are skipped. A balance includes postings
+ * whose flush is still pending; the returned future completes once the posting is durable.
+ */
+public final class LoyaltyLedger implements AutoCloseable {
+
+    static final int MAGIC = 0x534c4c31; // "SLL1"
+    static final int FORMAT_VERSION = 1;
+    static final int RECORD_SIZE = 32;
+    static final int SEGMENT_SIZE = RECORD_SIZE * 32 * 1024;
+
+    private static final int COMMITTED = 1;
+    private static final int CHECKSUMMED_BYTES = 28;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Map<Long, Long> balances = new ConcurrentHashMap<>();
+    private final AtomicLong tail;
+    private final Queue<PendingPosting> pending = new ConcurrentLinkedQueue<>();
+    // Postings between their closed check and joining the queue, which close waits out
+    private final AtomicInteger postsInFlight = new AtomicInteger();
+    private final Thread committer;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile boolean closed;
+
+    /**
+     * Opens the ledger at the given path, creating it if needed, and replays it to rebuild the balances.
+     */
+    public LoyaltyLedger(Path path) throws IOException {
+        this.path = path.toAbsolutePath();
+        this.channel = FileChannel.open(this.path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.tail = new AtomicLong(recover());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.committer = new Thread(this::commitLoop, "loyalty-ledger-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Posts points for a customer; negative points redeem or reverse an earlier accrual.
+     * The future completes when the posting has been forced to disk.
+     */
+    public CompletableFuture<Void> post(long customerId, long points) {
+        // Announced before the closed check, so close either sees this posting or it sees closed
+        postsInFlight.incrementAndGet();
+        PendingPosting posting;
+        try {
+            if (closed) {
+                throw new IllegalStateException("Ledger is closed: " + path);
+            }
+            long position = tail.getAndAdd(RECORD_SIZE);
+            MappedByteBuffer segment = segment((int) (position / SEGMENT_SIZE));
+            int offset = (int) (position % SEGMENT_SIZE);
+            writeRecord(segment, offset, customerId, points, System.currentTimeMillis());
+            balances.merge(customerId, points, Long::sum);
+
+            posting = new PendingPosting(position);
+            pending.add(posting);
+        } finally {
+            postsInFlight.decrementAndGet();
+        }
+        LockSupport.unpark(committer);
+        return posting.done;
+    }
+
+    public long getBalance(long customerId) {
+        return balances.getOrDefault(customerId, 0L);
+    }
+
+    /**
+     * Gets the number of customers with at least one posting.
+     */
+    public int getCustomerCount() {
+        return balances.size();
+    }
+
+    /**
+     * Flushes outstanding postings, then stops the committer and closes the log.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        // Let postings that passed the closed check finish queueing; none can start from now on
+        while (postsInFlight.get() != 0) {
+            Thread.yield();
+        }
+        LockSupport.unpark(committer);
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Postings that raced with closing may have been queued after the committer's last pass
+        List<PendingPosting> late = new ArrayList<>();
+        PendingPosting posting;
+        while ((posting = pending.poll()) != null) {
+            late.add(posting);
+        }
+        if (!late.isEmpty()) {
+            commit(late);
+        }
+        channel.close();
+    }
+
+    /**
+     * Replays the log into the balance index and returns the position after the last valid record.
+     */
+    private long recover() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            MappedByteBuffer first = segment(0);
+            first.putInt(0, MAGIC);
+            first.putInt(4, FORMAT_VERSION);
+            first.putInt(8, RECORD_SIZE);
+            first.force(0, RECORD_SIZE);
+            return RECORD_SIZE;
+        }
+        MappedByteBuffer first = segment(0);
+        if (first.getInt(0) != MAGIC) {
+            throw new IOException("Not a loyalty ledger: " + path);
+        }
+        if (first.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported loyalty ledger version " + first.getInt(4) + ": " + path);
+        }
+
+        // Slots are reserved before they are written, so a crash can leave gaps; scan past them to the end
+        long end = RECORD_SIZE;
+        CRC32C crc = new CRC32C();
+        for (long position = RECORD_SIZE; position + RECORD_SIZE <= size; position += RECORD_SIZE) {
+            MappedByteBuffer segment = segment((int) (position / SEGMENT_SIZE));
+            int offset = (int) (position % SEGMENT_SIZE);
+            if (segment.getInt(offset + 24) != COMMITTED || segment.getInt(offset + 28) != checksum(crc, segment, offset)) {
+                continue;
+            }
+            balances.merge(segment.getLong(offset), segment.getLong(offset + 8), Long::sum);
+            end = position + RECORD_SIZE;
+        }
+        return end;
+    }
+
+    private static void writeRecord(MappedByteBuffer segment, int offset, long customerId, long points, long timestamp) {
+        segment.putLong(offset, customerId);
+        segment.putLong(offset + 8, points);
+        segment.putLong(offset + 16, timestamp);
+        segment.putInt(offset + 24, COMMITTED);
+        segment.putInt(offset + 28, checksum(new CRC32C(), segment, offset));
+    }
+
+    private static int checksum(CRC32C crc, MappedByteBuffer segment, int offset) {
+        crc.reset();
+        crc.update(segment.slice(offset, CHECKSUMMED_BYTES));
+        return (int) crc.getValue();
+    }
+
+    private MappedByteBuffer segment(int index) {
+        MappedByteBuffer[] mapped = segments;
+        if (index < mapped.length) {
+            return mapped[index];
+        }
+        return mapSegment(index);
+    }
+
+    /**
+     * Maps segments up to the given one, growing the file as needed.
+     */
+    private synchronized MappedByteBuffer mapSegment(int index) {
+        MappedByteBuffer[] mapped = segments;
+        if (index < mapped.length) {
+            return mapped[index];
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(mapped, index + 1);
+        try {
+            for (int i = mapped.length; i <= index; i++) {
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * SEGMENT_SIZE, SEGMENT_SIZE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot extend loyalty ledger: " + path, e);
+        }
+        segments = grown;
+        return grown[index];
+    }
+
+    private void commitLoop() {
+        List<PendingPosting> batch = new ArrayList<>();
+        while (true) {
+            PendingPosting posting;
+            while ((posting = pending.poll()) != null) {
+                batch.add(posting);
+            }
+            if (batch.isEmpty()) {
+                if (closed) {
+                    return;
+                }
+                LockSupport.park(this);
+                continue;
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Forces the range of segments covering the batch, then completes its postings.
+     */
+    private void commit(List<PendingPosting> batch) {
+        long low = Long.MAX_VALUE;
+        long high = 0;
+        for (PendingPosting posting : batch) {
+            low = Math.min(low, posting.position);
+            high = Math.max(high, posting.position + RECORD_SIZE);
+        }
+        try {
+            for (long start = low; start < high; ) {
+                int index = (int) (start / SEGMENT_SIZE);
+                int offset = (int) (start % SEGMENT_SIZE);
+                int length = (int) Math.min(SEGMENT_SIZE - offset, high - start);
+                segment(index).force(offset, length);
+                start += length;
+            }
+        } catch (RuntimeException e) {
+            for (PendingPosting failed : batch) {
+                failed.done.completeExceptionally(e);
+            }
+            return;
+        }
+        for (PendingPosting committed : batch) {
+            committed.done.complete(null);
+        }
+    }
+
+    private static final class PendingPosting {
+        final long position;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        PendingPosting(long position) {
+            this.position = position;
+        }
+    }
+}
@@ -24,9 +24,18 @@ public interface LoyaltyProgram {
      */
     double getPointsMultiplier();
 
+    /**
+     * Gets the smallest purchase amount that qualifies for this tier.
+     * Tiers are ranked by this amount, so a tier must declare it to be chosen over lower tiers.
+     */
+    default double getQualifyingAmount() {
+        return 0.0;
+    }
+
     /**
      * Checks if this tier is applicable for the given purchase amount.
      */
-    boolean isApplicable(double totalAmount);
+    default boolean isApplicable(double totalAmount) {
+        return totalAmount >= getQualifyingAmount();
+    }
 }
-
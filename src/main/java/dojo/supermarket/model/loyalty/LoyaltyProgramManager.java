@@ -1,30 +1,42 @@
-
-
 package dojo.supermarket.model.loyalty;
 
 import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.DiscountDescriptions;
+import dojo.supermarket.model.DiscountKind;
+import dojo.supermarket.model.DiscountSink;
+import dojo.supermarket.model.Money;
 import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ShoppingCart;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * Manages customer loyalty programs and applies loyalty discounts.
  * Follows Open/Closed Principle - new loyalty tiers can be added without code changes.
+ * Tiers can be added while checkouts are running; lookups never lock.
  */
 public class LoyaltyProgramManager {
 
-    private final List<LoyaltyProgram> programs = new ArrayList<>();
+    private static final LoyaltyProgram BASIC = new BasicLoyaltyTier();
+
+    private volatile TierTable tiers = TierTable.EMPTY;
+    private volatile CustomerProfileCache profiles;
+    private volatile SpendTracker spendTracker;
 
     public LoyaltyProgramManager() {
-        // Register default loyalty tiers
-        programs.add(new GoldLoyaltyTier());
-        programs.add(new SilverLoyaltyTier());
-        programs.add(new BasicLoyaltyTier());
+        // Register default loyalty tiers, without calling addLoyaltyProgram, which a subclass may override
+        tiers = TierTable.EMPTY.with(new GoldLoyaltyTier()).with(new SilverLoyaltyTier()).with(BASIC);
     }
 
-    public void addLoyaltyProgram(LoyaltyProgram program) {
-        programs.add(program);
+    /**
+     * Adds a tier, ranked by its qualifying amount. Of tiers with the same qualifying amount,
+     * the one added last is chosen.
+     */
+    public synchronized void addLoyaltyProgram(LoyaltyProgram program) {
+        tiers = tiers.with(program);
     }
 
     /**
@@ -32,26 +44,228 @@ public class LoyaltyProgramManager {
      * Returns the highest tier that the customer qualifies for.
      */
     public LoyaltyProgram getApplicableTier(double totalAmount) {
-        for (LoyaltyProgram program : programs) {
-            if (program.isApplicable(totalAmount)) {
-                return program;
-            }
+        return tiers.lookup(totalAmount);
+    }
+
+    public CustomerProfileCache getProfileCache() {
+        return profiles;
+    }
+
+    /**
+     * Resolves identified customers' tiers through the given profile cache, or stops doing so when given null.
+     */
+    public void setProfileCache(CustomerProfileCache profiles) {
+        this.profiles = profiles;
+    }
+
+    public SpendTracker getSpendTracker() {
+        return spendTracker;
+    }
+
+    /**
+     * Qualifies identified customers for tiers on their rolling spend, or on the current purchase alone when given null.
+     */
+    public void setSpendTracker(SpendTracker spendTracker) {
+        this.spendTracker = spendTracker;
+    }
+
+    /**
+     * Determines a customer's tier: the tier their profile holds, unless the purchase amount alone
+     * qualifies for a higher one. Anonymous and unknown customers get the tier the amount qualifies for.
+     */
+    public LoyaltyProgram getApplicableTier(long customerId, double totalAmount) {
+        TierTable table = tiers;
+        LoyaltyProgram byAmount = table.lookup(totalAmount);
+        CustomerProfileCache cache = profiles;
+        if (cache == null || customerId == ShoppingCart.ANONYMOUS) {
+            return byAmount;
+        }
+        CustomerProfile profile = cache.get(customerId);
+        LoyaltyProgram held = profile != null ? table.named(profile.getTierName()) : null;
+        if (held == null || held.getQualifyingAmount() < byAmount.getQualifyingAmount()) {
+            return byAmount;
+        }
+        return held;
+    }
+
+    /**
+     * Determines a customer's tier for a purchase made at the given time. With a spend tracker, an
+     * identified customer qualifies on their rolling spend plus this purchase rather than on the purchase alone.
+     */
+    public LoyaltyProgram getApplicableTier(long customerId, Money purchase, Instant at) {
+        SpendTracker tracker = spendTracker;
+        if (tracker == null || customerId == ShoppingCart.ANONYMOUS) {
+            return getApplicableTier(customerId, purchase.toDouble());
+        }
+        long qualifying = tracker.getRollingSpend(customerId, at).getMinorUnits() + purchase.getMinorUnits();
+        return getApplicableTier(customerId, Money.toDouble(qualifying));
+    }
+
+    /**
+     * Adds a completed purchase to the customer's rolling spend, if spend is being tracked.
+     */
+    public void recordSpend(long customerId, Money total, Instant at) {
+        SpendTracker tracker = spendTracker;
+        if (tracker != null && customerId != ShoppingCart.ANONYMOUS) {
+            tracker.record(customerId, total, at);
         }
-        return new BasicLoyaltyTier();
+    }
+
+    /**
+     * Calculates the points a purchase earns: one per whole currency unit spent, times the tier's multiplier.
+     */
+    public long calculatePoints(Money total) {
+        return pointsAt(getApplicableTier(total.toDouble()), total);
+    }
+
+    public long calculatePoints(Money total, long customerId, Instant at) {
+        return calculatePoints(total, total, customerId, at);
+    }
+
+    /**
+     * Calculates the points earned by paying {@code paid}, at the tier the customer qualifies for with {@code qualifying},
+     * such as the total before the loyalty discount the tier itself gave.
+     */
+    public long calculatePoints(Money paid, Money qualifying, long customerId, Instant at) {
+        return pointsAt(getApplicableTier(customerId, qualifying, at), paid);
+    }
+
+    private static long pointsAt(LoyaltyProgram tier, Money total) {
+        return (long) Math.floor(total.toDouble() * tier.getPointsMultiplier());
     }
 
     /**
      * Calculates loyalty discount based on the customer's tier.
      */
     public Discount calculateLoyaltyDiscount(double subtotal, Product representativeProduct) {
-        LoyaltyProgram tier = getApplicableTier(subtotal);
+        return calculateLoyaltyDiscount(Money.of(subtotal), representativeProduct);
+    }
 
-        if (tier.getDiscountPercentage() > 0) {
-            double discountAmount = subtotal * tier.getDiscountPercentage() / 100.0;
-            String description = tier.getTierName() + " Member - " + tier.getDiscountPercentage() + "% off";
-            return new Discount(representativeProduct, description, -discountAmount);
+    /**
+     * Calculates loyalty discount based on the customer's tier, in exact cents.
+     */
+    public Discount calculateLoyaltyDiscount(Money subtotal, Product representativeProduct) {
+        TierTable table = tiers;
+        return discountAt(table, table.lookup(subtotal.toDouble()), subtotal, representativeProduct);
+    }
+
+    /**
+     * Calculates the loyalty discount for a customer's purchase, at the tier {@link #getApplicableTier(long, Money, Instant)} resolves.
+     */
+    public Discount calculateLoyaltyDiscount(Money subtotal, Product representativeProduct, long customerId, Instant at) {
+        TierTable table = tiers;
+        return discountAt(table, getApplicableTier(customerId, subtotal, at), subtotal, representativeProduct);
+    }
+
+    /**
+     * Writes the loyalty discount for a customer's purchase into the sink, if their tier gives one.
+     */
+    public void emitLoyaltyDiscount(Money subtotal, Product representativeProduct, long customerId, Instant at,
+                                    DiscountSink sink) {
+        TierTable table = tiers;
+        emitAt(table, getApplicableTier(customerId, subtotal, at), subtotal, representativeProduct, sink);
+    }
+
+    private static void emitAt(TierTable table, LoyaltyProgram tier, Money subtotal, Product representativeProduct,
+                               DiscountSink sink) {
+        double percentage = tier.getDiscountPercentage();
+        if (percentage > 0) {
+            long discountAmount = Money.percentage(subtotal.getMinorUnits(), percentage);
+            sink.accept(representativeProduct, -discountAmount, table.descriptionOf(tier), percentage);
         }
+    }
+
+    private static Discount discountAt(TierTable table, LoyaltyProgram tier, Money subtotal, Product representativeProduct) {
+        double percentage = tier.getDiscountPercentage();
+        if (percentage <= 0) {
+            return null;
+        }
+        long discountAmount = Money.percentage(subtotal.getMinorUnits(), percentage);
+        return Discount.described(representativeProduct, table.descriptionOf(tier), percentage, -discountAmount);
+    }
 
-        return null;
+    private static int descriptionFor(LoyaltyProgram tier) {
+        // Keyed by tier name, so every manager shares one template per tier; the percentage filled in is the one applied
+        String tierName = tier.getTierName();
+        return DiscountDescriptions.register(DiscountKind.LOYALTY, tierName,
+            percentage -> tierName + " Member - " + percentage + "% off");
+    }
+
+    /**
+     * Immutable tier list sorted by qualifying amount, replaced as a whole when a tier is added.
+     */
+    private static final class TierTable {
+
+        static final TierTable EMPTY = new TierTable(new double[0], new LoyaltyProgram[0], Map.of(), Map.of());
+
+        private final double[] thresholds;
+        private final LoyaltyProgram[] programs;
+        private final Map<String, LoyaltyProgram> byName;
+        private final Map<LoyaltyProgram, Integer> descriptions;
+
+        private TierTable(double[] thresholds, LoyaltyProgram[] programs, Map<String, LoyaltyProgram> byName,
+                          Map<LoyaltyProgram, Integer> descriptions) {
+            this.thresholds = thresholds;
+            this.programs = programs;
+            this.byName = byName;
+            this.descriptions = descriptions;
+        }
+
+        TierTable with(LoyaltyProgram program) {
+            double threshold = program.getQualifyingAmount();
+            int position = upperBound(threshold);
+            double[] nextThresholds = new double[thresholds.length + 1];
+            LoyaltyProgram[] nextPrograms = new LoyaltyProgram[programs.length + 1];
+            System.arraycopy(thresholds, 0, nextThresholds, 0, position);
+            System.arraycopy(programs, 0, nextPrograms, 0, position);
+            nextThresholds[position] = threshold;
+            nextPrograms[position] = program;
+            System.arraycopy(thresholds, position, nextThresholds, position + 1, thresholds.length - position);
+            System.arraycopy(programs, position, nextPrograms, position + 1, programs.length - position);
+            Map<String, LoyaltyProgram> nextByName = new HashMap<>(byName);
+            nextByName.put(program.getTierName(), program);
+            Map<LoyaltyProgram, Integer> nextDescriptions = new IdentityHashMap<>(descriptions);
+            nextDescriptions.put(program, descriptionFor(program));
+            return new TierTable(nextThresholds, nextPrograms, nextByName, nextDescriptions);
+        }
+
+        /**
+         * Gets the description id of a tier in this table. The fallback Basic tier gives no discount, so never needs one.
+         */
+        int descriptionOf(LoyaltyProgram tier) {
+            Integer id = descriptions.get(tier);
+            return id != null ? id : descriptionFor(tier);
+        }
+
+        LoyaltyProgram named(String tierName) {
+            return tierName != null ? byName.get(tierName) : null;
+        }
+
+        LoyaltyProgram lookup(double totalAmount) {
+            // Walks down past tiers whose own rule turns the amount away, which is rare
+            for (int i = upperBound(totalAmount) - 1; i >= 0; i--) {
+                if (programs[i].isApplicable(totalAmount)) {
+                    return programs[i];
+                }
+            }
+            return BASIC;
+        }
+
+        /**
+         * Finds the number of tiers whose qualifying amount is at most the given amount.
+         */
+        private int upperBound(double amount) {
+            int low = 0;
+            int high = thresholds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (thresholds[mid] <= amount) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
     }
-}
\ No newline at end of file
+}
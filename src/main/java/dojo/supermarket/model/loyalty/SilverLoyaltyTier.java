@@ -21,8 +21,8 @@ public class SilverLoyaltyTier implements LoyaltyProgram {
     }
 
     @Override
-    public boolean isApplicable(double totalAmount) {
-        return totalAmount >= 20.0;
+    public double getQualifyingAmount() {
+        return 20.0;
     }
 }
 
@@ -0,0 +1,212 @@
+package dojo.supermarket.model.loyalty;
+
+import dojo.supermarket.model.Money;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * Each customer's spend over the last {@value #WINDOW_DAYS} days, for tier qualification.
+ *
+ * Customers are spread over independently locked segments. A segment is an open-addressing table held
+ * entirely in primitive arrays: the customer ids, a running total, the last day written, and a ring of
+ * one spend bucket per day. Recording a purchase and reading a rolling total never allocate. Each read
+ * or write first expires the buckets of the days that have left the window since the customer was last
+ * touched, so both are constant time amortised over the days that pass. A slot takes under 400 bytes
+ * and the tables stay at least a quarter free, so millions of customers fit in a few gigabytes of heap.
+ *
+ * A day's bucket is an int of minor units. Spend beyond its range saturates the bucket rather than
+ * failing, so one customer's day counts for at most {@code Integer.MAX_VALUE} minor units; that is far
+ * above any tier threshold, and recording a priced purchase never throws.
+ */
+public class SpendTracker {
+
+    public static final int WINDOW_DAYS = 90;
+
+    private static final int SEGMENTS = 64;
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final ZoneRules zone;
+
+    public SpendTracker() {
+        this(ZoneId.systemDefault(), 0);
+    }
+
+    /**
+     * Creates a tracker whose days run midnight to midnight in the given zone, sized for the expected number of customers.
+     */
+    public SpendTracker(ZoneId zone, int expectedCustomers) {
+        this.zone = zone.getRules();
+        int perSegment = Math.max(16, expectedCustomers / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Adds a purchase to the customer's spend on the day it was made; a negative amount records a refund.
+     */
+    public void record(long customerId, Money amount, Instant at) {
+        record(customerId, amount.getMinorUnits(), epochDay(at));
+    }
+
+    public void record(long customerId, long amountMinorUnits, int epochDay) {
+        if (customerId == 0) {
+            throw new IllegalArgumentException("Cannot track spend for an anonymous customer");
+        }
+        int hash = spread(customerId);
+        Segment segment = segments[hash >>> 26];
+        synchronized (segment) {
+            segment.add(customerId, hash, amountMinorUnits, epochDay);
+        }
+    }
+
+    /**
+     * Gets the customer's total spend over the {@value #WINDOW_DAYS} days ending on the day of the given instant.
+     * Only the latest window is kept: for a day before the customer's latest recorded purchase, this is the
+     * total as of that latest day.
+     */
+    public Money getRollingSpend(long customerId, Instant asOf) {
+        return Money.ofMinorUnits(getRollingSpend(customerId, epochDay(asOf)));
+    }
+
+    public long getRollingSpend(long customerId, int epochDay) {
+        int hash = spread(customerId);
+        Segment segment = segments[hash >>> 26];
+        synchronized (segment) {
+            return segment.total(customerId, hash, epochDay);
+        }
+    }
+
+    /**
+     * Gets the number of customers tracked, including those whose window has since emptied.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    private int epochDay(Instant at) {
+        long seconds = at.getEpochSecond() + zone.getOffset(at).getTotalSeconds();
+        return (int) Math.floorDiv(seconds, SECONDS_PER_DAY);
+    }
+
+    private static int spread(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 32;
+        return (int) h;
+    }
+
+    /**
+     * One lock's worth of customers. Slot {@code s} owns buckets {@code s * WINDOW_DAYS} onwards,
+     * indexed by epoch day modulo the window. Customer id 0 marks a free slot, as it is never a member.
+     */
+    private static final class Segment {
+
+        private long[] keys;
+        private long[] totals;
+        private int[] lastDays;
+        private int[] buckets;
+        private int size;
+
+        Segment(int expected) {
+            allocate(Integer.highestOneBit(Math.max(16, expected * 4 / 3) - 1) << 1);
+        }
+
+        void add(long customerId, int hash, long amount, int day) {
+            int slot = find(customerId, hash);
+            if (keys[slot] == 0) {
+                if ((size + 1) * 4L > keys.length * 3L) {
+                    grow();
+                    slot = find(customerId, hash);
+                }
+                keys[slot] = customerId;
+                lastDays[slot] = day;
+                size++;
+            }
+            advance(slot, day);
+            if (lastDays[slot] - day >= WINDOW_DAYS) {
+                // Dated before the window of a later purchase already recorded
+                return;
+            }
+            int bucket = slot * WINDOW_DAYS + Math.floorMod(day, WINDOW_DAYS);
+            long sum = buckets[bucket] + amount;
+            int saturated = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, sum));
+            // Moves the total by what the bucket actually took, so expiring the bucket later removes exactly that
+            totals[slot] += saturated - buckets[bucket];
+            buckets[bucket] = saturated;
+        }
+
+        long total(long customerId, int hash, int day) {
+            int slot = find(customerId, hash);
+            if (keys[slot] == 0) {
+                return 0;
+            }
+            advance(slot, day);
+            return totals[slot];
+        }
+
+        /**
+         * Empties the buckets of the days between the slot's last day and the given day, which have left the window.
+         */
+        private void advance(int slot, int day) {
+            int last = lastDays[slot];
+            if (day <= last) {
+                return;
+            }
+            int base = slot * WINDOW_DAYS;
+            if (day - last >= WINDOW_DAYS) {
+                Arrays.fill(buckets, base, base + WINDOW_DAYS, 0);
+                totals[slot] = 0;
+            } else {
+                for (int d = last + 1; d <= day; d++) {
+                    int bucket = base + Math.floorMod(d, WINDOW_DAYS);
+                    totals[slot] -= buckets[bucket];
+                    buckets[bucket] = 0;
+                }
+            }
+            lastDays[slot] = day;
+        }
+
+        private int find(long customerId, int hash) {
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (keys[slot] != 0 && keys[slot] != customerId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldTotals = totals;
+            int[] oldLastDays = lastDays;
+            int[] oldBuckets = buckets;
+            allocate(oldKeys.length * 2);
+            for (int old = 0; old < oldKeys.length; old++) {
+                if (oldKeys[old] != 0) {
+                    int slot = find(oldKeys[old], spread(oldKeys[old]));
+                    keys[slot] = oldKeys[old];
+                    totals[slot] = oldTotals[old];
+                    lastDays[slot] = oldLastDays[old];
+                    System.arraycopy(oldBuckets, old * WINDOW_DAYS, buckets, slot * WINDOW_DAYS, WINDOW_DAYS);
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            totals = new long[capacity];
+            lastDays = new int[capacity];
+            buckets = new int[Math.multiplyExact(capacity, WINDOW_DAYS)];
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package dojo.supermarket.model.offer;
 
 import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.DiscountDescriptions;
+import dojo.supermarket.model.DiscountKind;
+import dojo.supermarket.model.DiscountSink;
+import dojo.supermarket.model.Money;
 import dojo.supermarket.model.Product;
 
 /**
@@ -8,16 +12,29 @@ import dojo.supermarket.model.Product;
  */
 public class FiveForAmountStrategy implements OfferStrategy {
 
+    private static final int DESCRIPTION = DiscountDescriptions.register(DiscountKind.OFFER, argument -> "5 for " + argument);
+
     @Override
     public Discount calculateDiscount(Product product, double quantity, double unitPrice, double argument) {
-        int quantityAsInt = (int) quantity;
-        if (quantityAsInt < 5) {
+        if ((int) quantity < 5) {
             return null;
         }
+        return Discount.described(product, DESCRIPTION, argument, -discountAmount(quantity, unitPrice, argument));
+    }
+
+    @Override
+    public void emitDiscount(Product product, double quantity, double unitPrice, double argument, DiscountSink sink) {
+        if ((int) quantity < 5) {
+            return;
+        }
+        sink.accept(product, -discountAmount(quantity, unitPrice, argument), DESCRIPTION, argument);
+    }
 
+    private static long discountAmount(double quantity, double unitPrice, double argument) {
+        int quantityAsInt = (int) quantity;
         int numberOfSets = quantityAsInt / 5;
-        double discountTotal = unitPrice * quantity - (argument * numberOfSets + quantityAsInt % 5 * unitPrice);
-        return new Discount(product, "5 for " + argument, -discountTotal);
+        long payable = Money.toMinorUnits(argument) * numberOfSets + quantityAsInt % 5 * Money.toMinorUnits(unitPrice);
+        return Money.toMinorUnits(unitPrice * quantity) - payable;
     }
 
     @Override
@@ -1,6 +1,7 @@
 package dojo.supermarket.model.offer;
 
 import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.DiscountSink;
 import dojo.supermarket.model.Product;
 
 /**
@@ -8,6 +9,7 @@ import dojo.supermarket.model.Product;
  * Each implementation represents a different type of special offer.
  * This design follows the Open/Closed Principle - new offer types
  * can be added by creating new implementations without modifying existing code.
+ * Discount amounts are worked out in whole cents through {@link dojo.supermarket.model.Money}.
  */
 public interface OfferStrategy {
 
@@ -22,6 +24,18 @@ public interface OfferStrategy {
 	 */
 	Discount calculateDiscount(Product product, double quantity, double unitPrice, double argument);
 
+	/**
+	 * Writes the discount for a given product and quantity into the sink, if there is one.
+	 * Checkouts price offers through this method; override it to report the discount without
+	 * building a {@link Discount} or its description.
+	 */
+	default void emitDiscount(Product product, double quantity, double unitPrice, double argument, DiscountSink sink) {
+		Discount discount = calculateDiscount(product, quantity, unitPrice, argument);
+		if (discount != null) {
+			sink.addDiscount(discount);
+		}
+	}
+
 	/**
 	 * Gets the description pattern for this offer type.
 	 */
@@ -2,17 +2,20 @@ package dojo.supermarket.model.offer;
 
 import dojo.supermarket.model.SpecialOfferType;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Factory for creating offer strategies based on offer type.
  * This design follows the Open/Closed Principle - new offer types can be registered
  * without modifying the factory's core logic.
+ * Strategies can be registered while checkouts are running.
  */
 public class OfferStrategyFactory {
 
-    private static final Map<SpecialOfferType, OfferStrategy> strategies = new HashMap<>();
+    private static final Map<SpecialOfferType, OfferStrategy> strategies = new ConcurrentHashMap<>();
+    private static final AtomicLong version = new AtomicLong();
 
     static {
         // Register default strategies
@@ -28,6 +31,14 @@ public class OfferStrategyFactory {
      */
     public static void registerStrategy(SpecialOfferType type, OfferStrategy strategy) {
         strategies.put(type, strategy);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Gets a counter that changes every time a strategy is registered.
+     */
+    public static long getVersion() {
+        return version.get();
     }
 
     /**
@@ -1,6 +1,10 @@
 package dojo.supermarket.model.offer;
 
 import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.DiscountDescriptions;
+import dojo.supermarket.model.DiscountKind;
+import dojo.supermarket.model.DiscountSink;
+import dojo.supermarket.model.Money;
 import dojo.supermarket.model.Product;
 
 /**
@@ -8,10 +12,20 @@ import dojo.supermarket.model.Product;
  */
 public class PercentageDiscountStrategy implements OfferStrategy {
 
+    private static final int DESCRIPTION = DiscountDescriptions.register(DiscountKind.OFFER, argument -> argument + "% off");
+
     @Override
     public Discount calculateDiscount(Product product, double quantity, double unitPrice, double argument) {
-        double discountAmount = quantity * unitPrice * argument / 100.0;
-        return new Discount(product, argument + "% off", -discountAmount);
+        return Discount.described(product, DESCRIPTION, argument, -discountAmount(quantity, unitPrice, argument));
+    }
+
+    @Override
+    public void emitDiscount(Product product, double quantity, double unitPrice, double argument, DiscountSink sink) {
+        sink.accept(product, -discountAmount(quantity, unitPrice, argument), DESCRIPTION, argument);
+    }
+
+    private static long discountAmount(double quantity, double unitPrice, double argument) {
+        return Money.percentage(Money.toMinorUnits(quantity * unitPrice), argument);
     }
 
     @Override
@@ -1,6 +1,10 @@
 package dojo.supermarket.model.offer;
 
 import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.DiscountDescriptions;
+import dojo.supermarket.model.DiscountKind;
+import dojo.supermarket.model.DiscountSink;
+import dojo.supermarket.model.Money;
 import dojo.supermarket.model.Product;
 
 /**
@@ -8,16 +12,30 @@ import dojo.supermarket.model.Product;
  */
 public class ThreeForTwoStrategy implements OfferStrategy {
 
+    private static final int DESCRIPTION = DiscountDescriptions.register(DiscountKind.OFFER, "3 for 2");
+
     @Override
     public Discount calculateDiscount(Product product, double quantity, double unitPrice, double argument) {
-        int quantityAsInt = (int) quantity;
-        if (quantityAsInt <= 2) {
+        if ((int) quantity <= 2) {
             return null;
         }
+        return Discount.described(product, DESCRIPTION, argument, -discountAmount(quantity, unitPrice));
+    }
+
+    @Override
+    public void emitDiscount(Product product, double quantity, double unitPrice, double argument, DiscountSink sink) {
+        if ((int) quantity <= 2) {
+            return;
+        }
+        sink.accept(product, -discountAmount(quantity, unitPrice), DESCRIPTION, argument);
+    }
 
+    private static long discountAmount(double quantity, double unitPrice) {
+        int quantityAsInt = (int) quantity;
         int numberOfSets = quantityAsInt / 3;
-        double discountAmount = quantity * unitPrice - ((numberOfSets * 2 * unitPrice) + quantityAsInt % 3 * unitPrice);
-        return new Discount(product, "3 for 2", -discountAmount);
+        long unitMinorUnits = Money.toMinorUnits(unitPrice);
+        long payable = (numberOfSets * 2L + quantityAsInt % 3) * unitMinorUnits;
+        return Money.toMinorUnits(quantity * unitPrice) - payable;
     }
 
     @Override
@@ -1,6 +1,10 @@
 package dojo.supermarket.model.offer;
 
 import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.DiscountDescriptions;
+import dojo.supermarket.model.DiscountKind;
+import dojo.supermarket.model.DiscountSink;
+import dojo.supermarket.model.Money;
 import dojo.supermarket.model.Product;
 
 /**
@@ -8,16 +12,28 @@ import dojo.supermarket.model.Product;
  */
 public class TwoForAmountStrategy implements OfferStrategy {
 
+    private static final int DESCRIPTION = DiscountDescriptions.register(DiscountKind.OFFER, argument -> "2 for " + argument);
+
     @Override
     public Discount calculateDiscount(Product product, double quantity, double unitPrice, double argument) {
-        int quantityAsInt = (int) quantity;
-        if (quantityAsInt < 2) {
+        if ((int) quantity < 2) {
             return null;
         }
+        return Discount.described(product, DESCRIPTION, argument, -discountAmount(quantity, unitPrice, argument));
+    }
+
+    @Override
+    public void emitDiscount(Product product, double quantity, double unitPrice, double argument, DiscountSink sink) {
+        if ((int) quantity < 2) {
+            return;
+        }
+        sink.accept(product, -discountAmount(quantity, unitPrice, argument), DESCRIPTION, argument);
+    }
 
-        double total = argument * (quantityAsInt / 2) + quantityAsInt % 2 * unitPrice;
-        double discountAmount = unitPrice * quantity - total;
-        return new Discount(product, "2 for " + argument, -discountAmount);
+    private static long discountAmount(double quantity, double unitPrice, double argument) {
+        int quantityAsInt = (int) quantity;
+        long total = Money.toMinorUnits(argument) * (quantityAsInt / 2) + quantityAsInt % 2 * Money.toMinorUnits(unitPrice);
+        return Money.toMinorUnits(unitPrice * quantity) - total;
     }
 
     @Override
@@ -0,0 +1,219 @@
+package dojo.supermarket.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ProductRegistry;
+import dojo.supermarket.model.ProductUnit;
+import dojo.supermarket.model.Receipt;
+import dojo.supermarket.model.ReceiptItem;
+import dojo.supermarket.model.ShoppingCart;
+import dojo.supermarket.model.Teller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded HTTP front end that prices carts through a shared {@link Teller}.
+ *
+ * {@code POST /checkout} takes a plain-text cart, one {@code name,unit,quantity} line per scan,
+ * and answers with a plain-text receipt, 400 for a cart it cannot read, or 500 if pricing fails.
+ * {@code GET /metrics} reports the latency of every checkout request, including rejected ones,
+ * measured up to the moment its response is sent.
+ * Every request runs on its own virtual thread; the number of requests in flight and the size
+ * of each request body are capped, so memory stays bounded however many lanes connect.
+ */
+public class CheckoutServer implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 10_000;
+    public static final int DEFAULT_MAX_BODY_BYTES = 64 * 1024;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final Teller teller;
+    private final ProductRegistry registry;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final int maxConcurrentRequests;
+    private final int maxBodyBytes;
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public CheckoutServer(Teller teller, ProductRegistry registry, InetSocketAddress address) throws IOException {
+        this(teller, registry, address, DEFAULT_MAX_CONCURRENT_REQUESTS, DEFAULT_MAX_BODY_BYTES);
+    }
+
+    public CheckoutServer(Teller teller, ProductRegistry registry, InetSocketAddress address,
+                          int maxConcurrentRequests, int maxBodyBytes) throws IOException {
+        this.teller = teller;
+        this.registry = registry;
+        this.inFlight = new Semaphore(maxConcurrentRequests);
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxBodyBytes = maxBodyBytes;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/checkout", this::handleCheckout);
+        this.server.createContext("/metrics", this::handleMetrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Stops accepting requests and waits for those in flight to finish, interrupting them after a timeout.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handleCheckout(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        if (!inFlight.tryAcquire()) {
+            respondTimed(exchange, start, 503, "Too many requests in flight\n");
+            return;
+        }
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respondTimed(exchange, start, 405, "Use POST\n");
+                return;
+            }
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                respondTimed(exchange, start, 413, "Cart payload exceeds " + maxBodyBytes + " bytes\n");
+                return;
+            }
+            String receipt;
+            try {
+                receipt = format(teller.checksOutArticlesFrom(parseCart(new String(body, StandardCharsets.UTF_8))));
+            } catch (IllegalArgumentException e) {
+                respondTimed(exchange, start, 400, e.getMessage() + "\n");
+                return;
+            } catch (RuntimeException e) {
+                // Answer rather than let the exception escape, which would leave the lane waiting on an open exchange
+                respondTimed(exchange, start, 500, "Checkout failed\n");
+                return;
+            }
+            respondTimed(exchange, start, 200, receipt);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Records the request's latency, then responds. Recording first means a lane that has its answer
+     * also sees its request in the metrics.
+     */
+    private void respondTimed(HttpExchange exchange, long start, int status, String body) throws IOException {
+        latency.record(System.nanoTime() - start);
+        respond(exchange, status, body);
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        String metrics = "requests " + latency.getCount() + "\n"
+            + "latency_mean_us " + latency.getMeanMicros() + "\n"
+            + "latency_p50_us " + latency.getPercentileMicros(50) + "\n"
+            + "latency_p99_us " + latency.getPercentileMicros(99) + "\n"
+            + "latency_max_us " + latency.getMaxMicros() + "\n"
+            + "in_flight " + (maxConcurrentRequests - inFlight.availablePermits()) + "\n";
+        respond(exchange, 200, metrics);
+    }
+
+    /**
+     * Reads the request body, or returns null if it is larger than the configured limit.
+     */
+    private byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (body.size() + read > maxBodyBytes) {
+                return null;
+            }
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    private ShoppingCart parseCart(String payload) {
+        ShoppingCart cart = new ShoppingCart();
+        for (String line : payload.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            int quantityComma = line.lastIndexOf(',');
+            int unitComma = quantityComma > 0 ? line.lastIndexOf(',', quantityComma - 1) : -1;
+            if (unitComma <= 0) {
+                throw new IllegalArgumentException("Malformed cart line: " + line);
+            }
+            String name = line.substring(0, unitComma).trim();
+            ProductUnit unit;
+            double quantity;
+            try {
+                unit = ProductUnit.valueOf(line.substring(unitComma + 1, quantityComma).trim().toUpperCase());
+                quantity = Double.parseDouble(line.substring(quantityComma + 1).trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Malformed cart line: " + line);
+            }
+            Product product = registry.lookup(name, unit);
+            if (product == null) {
+                throw new IllegalArgumentException("Unknown product: " + name);
+            }
+            cart.addItemQuantity(product, quantity);
+        }
+        return cart;
+    }
+
+    private static String format(Receipt receipt) {
+        StringBuilder text = new StringBuilder();
+        for (ReceiptItem item : receipt.getItems()) {
+            text.append(item.getProduct().getName()).append('\t')
+                .append(item.getQuantity()).append('\t')
+                .append(item.getTotalAmount()).append('\n');
+        }
+        for (Discount discount : receipt.getDiscounts()) {
+            text.append(discount.getDescription()).append('\t')
+                .append(discount.getProduct().getName()).append('\t')
+                .append(discount.getAmount()).append('\n');
+        }
+        text.append("Total\t\t").append(receipt.getTotal()).append('\n');
+        return text.toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
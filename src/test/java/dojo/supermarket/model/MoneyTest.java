@@ -0,0 +1,74 @@
+package dojo.supermarket.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    @DisplayName("Money should round decimal amounts half-even to whole cents")
+    void testRounding() {
+        assertEquals(199, Money.toMinorUnits(1.99));
+        assertEquals(2, Money.toMinorUnits(0.025));
+        assertEquals(-125, Money.toMinorUnits(-1.25));
+        assertEquals(Money.ofMinorUnits(10), Money.of(0.1));
+    }
+
+    @Test
+    @DisplayName("Money arithmetic should be exact")
+    void testArithmetic() {
+        Money tenCents = Money.of(0.10);
+        Money twentyCents = Money.of(0.20);
+
+        assertEquals(Money.of(0.30), tenCents.plus(twentyCents));
+        assertEquals(Money.of(-0.10), tenCents.minus(twentyCents));
+        assertEquals(Money.of(0.60), twentyCents.times(3));
+        assertEquals(Money.of(1.25), Money.of(25.00).percentage(5.0));
+        assertTrue(Money.ZERO.isZero());
+        assertTrue(tenCents.compareTo(twentyCents) < 0);
+    }
+
+    @Test
+    @DisplayName("Money should print as a two decimal amount")
+    void testToString() {
+        assertEquals("4.05", Money.ofMinorUnits(405).toString());
+        assertEquals("-0.07", Money.ofMinorUnits(-7).toString());
+        assertEquals("0.00", Money.ZERO.toString());
+    }
+
+    @Test
+    @DisplayName("Receipt totals should add up in exact cents")
+    void testReceiptTotalIsExact() {
+        Product sweet = new Product("sweet", ProductUnit.EACH);
+        Receipt receipt = new Receipt();
+        for (int i = 0; i < 10; i++) {
+            receipt.addProduct(sweet, 1, 0.10, 0.10);
+        }
+        receipt.addDiscount(new Discount(sweet, "promo", -0.30));
+
+        assertEquals(Money.of(0.70), receipt.getTotal());
+        assertEquals(0.70, receipt.getTotalPrice());
+        assertEquals(Money.of(0.10), receipt.getItems().get(0).getTotalAmount());
+    }
+
+    @Test
+    @DisplayName("Offer discounts should be whole cents")
+    void testOfferDiscountsInCents() {
+        SupermarketCatalog catalog = new FakeCatalog();
+        Product cheese = new Product("cheese", ProductUnit.KILO);
+        catalog.addProduct(cheese, 9.99);
+        Teller teller = new Teller(catalog);
+        teller.addSpecialOffer(SpecialOfferType.TEN_PERCENT_DISCOUNT, cheese, 10.0);
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItemQuantity(cheese, 0.333);
+
+        Receipt receipt = teller.checksOutArticlesFrom(cart);
+
+        // 0.333 kg * 9.99 = 3.32667 -> 3.33; 10% off -> 0.33
+        assertEquals(Money.of(-0.33), receipt.getDiscounts().get(0).getAmount());
+        assertEquals(Money.of(3.00), receipt.getTotal());
+    }
+}
@@ -0,0 +1,100 @@
+package dojo.supermarket.model;
+
+import dojo.supermarket.model.category.PremiumCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductRegistryTest {
+
+    private ProductRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ProductRegistry();
+    }
+
+    @Test
+    @DisplayName("Interning the same name and unit should return one canonical instance")
+    void testInternReturnsCanonicalInstance() {
+        Product first = registry.intern("milk", ProductUnit.EACH);
+        Product second = registry.intern("milk", ProductUnit.EACH);
+
+        assertSame(first, second);
+        assertTrue(first.getId() >= 0);
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    @DisplayName("Products with the same name but different units should be distinct")
+    void testUnitsAreDistinct() {
+        Product each = registry.intern("cheese", ProductUnit.EACH);
+        Product kilo = registry.intern("cheese", ProductUnit.KILO);
+
+        assertNotSame(each, kilo);
+        assertNotEquals(each, kilo);
+        assertNotEquals(each.getId(), kilo.getId());
+    }
+
+    @Test
+    @DisplayName("Interned products should stay equal to plain products with the same name and unit")
+    void testEqualityWithPlainProducts() {
+        Product interned = registry.intern("bread", ProductUnit.EACH);
+        Product plain = new Product("bread", ProductUnit.EACH);
+
+        assertEquals(interned, plain);
+        assertEquals(plain, interned);
+        assertEquals(interned.hashCode(), plain.hashCode());
+        assertEquals(-1, plain.getId());
+        assertSame(interned, registry.intern(plain));
+
+        Map<Product, Double> quantities = new HashMap<>();
+        quantities.put(plain, 2.0);
+        assertEquals(2.0, quantities.get(interned));
+    }
+
+    @Test
+    @DisplayName("Products interned in different registries should be equal by name and unit")
+    void testEqualityAcrossRegistries() {
+        Product ours = registry.intern("bread", ProductUnit.EACH);
+        Product theirs = new ProductRegistry().intern("bread", ProductUnit.EACH);
+        Product plain = new Product("bread", ProductUnit.EACH);
+
+        assertNotEquals(ours.getId(), theirs.getId());
+        assertEquals(ours, theirs);
+        assertEquals(theirs, plain);
+        assertEquals(ours, plain);
+        assertEquals(ours.hashCode(), theirs.hashCode());
+    }
+
+    @Test
+    @DisplayName("An existing canonical product should keep its original category")
+    void testCategoryOfFirstIntern() {
+        Product premium = registry.intern("champagne", ProductUnit.EACH, new PremiumCategory());
+
+        assertSame(premium, registry.intern("champagne", ProductUnit.EACH));
+        assertEquals("Premium", premium.getCategory().getCategoryName());
+        assertNull(registry.lookup("caviar", ProductUnit.EACH));
+    }
+
+    @Test
+    @DisplayName("Concurrent interning should produce a single instance per product")
+    void testConcurrentIntern() {
+        Set<Product> instances = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 10_000).parallel()
+            .forEach(i -> instances.add(registry.intern("item" + (i % 100), ProductUnit.EACH)));
+
+        assertEquals(100, instances.size());
+        assertEquals(100, registry.size());
+        assertEquals(100, instances.stream().mapToInt(Product::getId).distinct().count());
+    }
+}
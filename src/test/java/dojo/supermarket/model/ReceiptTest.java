@@ -0,0 +1,62 @@
+package dojo.supermarket.model;
+
+import dojo.supermarket.model.category.PremiumCategory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptTest {
+
+    @Test
+    @DisplayName("Receipt should keep running totals per category and discount kind")
+    void testRunningTotals() {
+        Product apples = new Product("apples", ProductUnit.KILO);
+        Product wine = new Product("wine", ProductUnit.EACH, new PremiumCategory());
+        Receipt receipt = new Receipt();
+        receipt.addProduct(apples, 2, 1.99, 3.98);
+        receipt.addProduct(wine, 1, 12.50, 12.50);
+        receipt.addDiscount(Discount.ofMinorUnits(apples, "10% off", -40, DiscountKind.OFFER));
+        receipt.addDiscount(Discount.ofMinorUnits(wine, "Gold Member", -160, DiscountKind.LOYALTY));
+        receipt.addDiscount(new Discount(wine, "Manual", -0.10));
+
+        assertEquals(Money.of(16.48), receipt.getItemsTotal());
+        assertEquals(Money.of(-2.10), receipt.getDiscountsTotal());
+        assertEquals(Money.of(14.38), receipt.getTotal());
+        assertEquals(Money.of(3.98), receipt.getCategoryTotal("Standard"));
+        assertEquals(Money.of(12.50), receipt.getCategoryTotal("Premium"));
+        assertEquals(Money.ZERO, receipt.getCategoryTotal("Conjured"));
+        assertEquals(Money.of(-0.40), receipt.getDiscountTotal(DiscountKind.OFFER));
+        assertEquals(Money.of(-1.60), receipt.getDiscountTotal(DiscountKind.LOYALTY));
+        assertEquals(Money.of(-0.10), receipt.getDiscountTotal(DiscountKind.OTHER));
+        assertEquals(Money.ZERO, receipt.getDiscountTotal(DiscountKind.BUNDLE));
+    }
+
+    @Test
+    @DisplayName("Discounts should only be added through the receipt")
+    void testDiscountsAreReadOnly() {
+        Receipt receipt = new Receipt();
+        assertThrows(UnsupportedOperationException.class,
+            () -> receipt.getDiscounts().add(new Discount(null, "x", -1.0)));
+    }
+
+    @Test
+    @DisplayName("Receipt should total emitted discounts and describe them when read")
+    void testEmittedDiscounts() {
+        int id = DiscountDescriptions.register(DiscountKind.OFFER, argument -> argument + " for the lot");
+        Product apples = new Product("apples", ProductUnit.KILO);
+        Receipt receipt = new Receipt();
+        receipt.addProduct(apples, 2, 1.99, 3.98);
+        receipt.accept(apples, -50, id, 3.48);
+        receipt.addDiscount(new Discount(apples, "Manual", -0.10));
+
+        assertEquals(Money.of(-0.60), receipt.getDiscountsTotal());
+        assertEquals(Money.of(-0.50), receipt.getDiscountTotal(DiscountKind.OFFER));
+        assertEquals(2, receipt.getDiscounts().size());
+        Discount emitted = receipt.getDiscounts().get(0);
+        assertSame(apples, emitted.getProduct());
+        assertEquals("3.48 for the lot", emitted.getDescription());
+        assertEquals(-0.50, emitted.getDiscountAmount(), 0.001);
+        assertEquals("Manual", receipt.getDiscounts().get(1).getDescription());
+    }
+}
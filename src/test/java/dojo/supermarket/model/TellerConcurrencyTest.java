@@ -0,0 +1,111 @@
+package dojo.supermarket.model;
+
+import dojo.supermarket.model.bundle.ProductBundle;
+import dojo.supermarket.model.catalog.IndexedCatalog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TellerConcurrencyTest {
+
+    @Test
+    @DisplayName("One Teller should serve many lanes while promotions are edited")
+    void testSharedTellerUnderConcurrentEdits() throws Exception {
+        IndexedCatalog catalog = new IndexedCatalog();
+        Product bread = new Product("bread", ProductUnit.EACH);
+        Product butter = new Product("butter", ProductUnit.EACH);
+        catalog.addProduct(bread, 2.00);
+        catalog.addProduct(butter, 3.00);
+        List<Product> extras = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Product extra = new Product("extra" + i, ProductUnit.EACH);
+            catalog.addProduct(extra, 1.00);
+            extras.add(extra);
+        }
+        Teller teller = new Teller(catalog);
+        teller.enableLoyaltyProgram();
+
+        AtomicBoolean editing = new AtomicBoolean(true);
+        ExecutorService lanes = Executors.newFixedThreadPool(8);
+        Thread editor = new Thread(() -> {
+            int i = 0;
+            while (editing.get()) {
+                Product extra = extras.get(i % extras.size());
+                teller.addSpecialOffer(SpecialOfferType.TEN_PERCENT_DISCOUNT, extra, 10.0);
+                teller.getBundleManager().addBundle(new ProductBundle("b" + i, Arrays.asList(extra, bread), 5.0));
+                teller.removeSpecialOffer(extra);
+                i++;
+            }
+        });
+        editor.start();
+
+        try {
+            List<Future<Money>> totals = new ArrayList<>();
+            for (int lane = 0; lane < 8; lane++) {
+                totals.add(lanes.submit(() -> {
+                    Money last = null;
+                    for (int n = 0; n < 500; n++) {
+                        ShoppingCart cart = new ShoppingCart();
+                        cart.addItemQuantity(bread, 2);
+                        cart.addItemQuantity(butter, 1);
+                        last = teller.checksOutArticlesFrom(cart).getTotal();
+                    }
+                    return last;
+                }));
+            }
+            for (Future<Money> total : totals) {
+                assertEquals(Money.of(7.00), total.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            editing.set(false);
+            editor.join();
+            lanes.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Batch checkout should return receipts in cart order matching sequential checkout")
+    void testCheckOutAllMatchesSequential() {
+        IndexedCatalog catalog = new IndexedCatalog();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Product product = new Product("item" + i, ProductUnit.EACH);
+            catalog.addProduct(product, 0.50 + i);
+            products.add(product);
+        }
+        Teller teller = new Teller(catalog);
+        teller.addSpecialOffer(SpecialOfferType.THREE_FOR_TWO, products.get(3), 0);
+        teller.getBundleManager().addBundle(new ProductBundle("pair", Arrays.asList(products.get(1), products.get(2)), 10.0));
+        teller.enableLoyaltyProgram();
+
+        List<ShoppingCart> carts = new ArrayList<>();
+        for (int c = 0; c < 2_000; c++) {
+            ShoppingCart cart = new ShoppingCart();
+            for (int line = 0; line <= c % 7; line++) {
+                cart.addItemQuantity(products.get((c + line * 3) % products.size()), 1 + line);
+            }
+            carts.add(cart);
+        }
+
+        List<Receipt> receipts;
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            receipts = teller.checkOutAll(carts, pool);
+        }
+
+        assertEquals(carts.size(), receipts.size());
+        for (int c = 0; c < carts.size(); c++) {
+            assertEquals(teller.checksOutArticlesFrom(carts.get(c)).getTotal(), receipts.get(c).getTotal());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dojo.supermarket.model.bundle;
+
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ProductUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BundleIndexTest {
+
+    @Test
+    @DisplayName("Index should match only bundles with all products in the cart, in order added")
+    void testApplicableTo() {
+        Product a = new Product("a", ProductUnit.EACH);
+        Product b = new Product("b", ProductUnit.EACH);
+        Product c = new Product("c", ProductUnit.EACH);
+        ProductBundle ab = new ProductBundle("ab", Arrays.asList(a, b), 10.0);
+        ProductBundle bc = new ProductBundle("bc", Arrays.asList(b, c), 10.0);
+        ProductBundle aa = new ProductBundle("aa", Arrays.asList(a, a), 10.0);
+        BundleIndex index = BundleIndex.build(List.of(ab, bc, aa));
+
+        assertEquals(List.of(ab, aa), index.applicableTo(Set.of(a, b)));
+        assertEquals(List.of(aa), index.applicableTo(Set.of(a)));
+        assertEquals(List.of(ab, bc, aa), index.applicableTo(Set.of(c, b, a)));
+        assertEquals(List.of(), index.applicableTo(Set.of(new Product("d", ProductUnit.EACH))));
+        assertEquals(1, index.getDistinctSize(2));
+    }
+
+    @Test
+    @DisplayName("Manager should rebuild its index when a bundle is added")
+    void testManagerIndexFollowsBundles() {
+        BundleManager manager = new BundleManager();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            products.add(new Product("p" + i, ProductUnit.EACH));
+        }
+        for (int i = 0; i + 1 < products.size(); i++) {
+            manager.addBundle(new ProductBundle("b" + i, Arrays.asList(products.get(i), products.get(i + 1)), 5.0));
+        }
+        BundleIndex index = manager.getIndex();
+        assertSame(index, manager.getIndex());
+        assertEquals(1, index.applicableTo(Set.of(products.get(10), products.get(11))).size());
+
+        manager.addBundle(new ProductBundle("pair", Arrays.asList(products.get(10), products.get(500)), 5.0));
+        assertNotSame(index, manager.getIndex());
+        assertEquals(2, manager.getIndex().applicableTo(Set.of(products.get(10), products.get(11), products.get(500))).size());
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -57,6 +58,114 @@ class BundleManagerTest {
         assertEquals(-3.00, discounts.get(0).getDiscountAmount(), 0.01);
     }
 
+    @Test
+    @DisplayName("Quantity bundles should apply once per complete set and allocate across members")
+    void testQuantityBundleAppliesPerSet() {
+        Product a = new Product("a", ProductUnit.EACH);
+        Product b = new Product("b", ProductUnit.EACH);
+        catalog.addProduct(a, 1.00);
+        catalog.addProduct(b, 2.00);
+
+        Map<Product, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(a, 2);
+        quantities.put(b, 1);
+        manager.addBundle(new ProductBundle("Pair", quantities, 10.0));
+
+        Map<Product, Double> cartProducts = new HashMap<>();
+        cartProducts.put(a, 5.0);
+        cartProducts.put(b, 3.0);
+
+        List<Discount> discounts = manager.calculateBundleDiscounts(cartProducts, catalog);
+
+        assertEquals(1, discounts.size());
+        BundleDiscount discount = (BundleDiscount) discounts.get(0);
+        assertEquals(2, discount.getApplications());
+        assertEquals(-0.80, discount.getDiscountAmount(), 0.001);
+        assertEquals(Money.of(-0.40), discount.getAllocation(a));
+        assertEquals(Money.of(-0.40), discount.getAllocation(b));
+
+        cartProducts.put(a, 1.0);
+        assertTrue(manager.calculateBundleDiscounts(cartProducts, catalog).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Bundles with the same name should each keep their own cached pricing")
+    void testSameNamedBundles() {
+        Product a = new Product("a", ProductUnit.EACH);
+        Product b = new Product("b", ProductUnit.EACH);
+        Product c = new Product("c", ProductUnit.EACH);
+        Product d = new Product("d", ProductUnit.EACH);
+        catalog.addProduct(a, 1.00);
+        catalog.addProduct(b, 1.00);
+        catalog.addProduct(c, 2.00);
+        catalog.addProduct(d, 2.00);
+        manager.addBundle(new ProductBundle("Deal", Arrays.asList(a, b), 10.0));
+        manager.addBundle(new ProductBundle("Deal", Arrays.asList(c, d), 20.0));
+
+        Map<Product, Double> cartProducts = new HashMap<>();
+        cartProducts.put(a, 1.0);
+        cartProducts.put(b, 1.0);
+        cartProducts.put(c, 1.0);
+        cartProducts.put(d, 1.0);
+
+        List<Discount> first = manager.calculateBundleDiscounts(cartProducts, catalog);
+        List<Discount> second = manager.calculateBundleDiscounts(cartProducts, catalog);
+
+        assertEquals(2, first.size());
+        // 10% of 2.00 and 20% of 4.00
+        assertEquals(-1.00, first.get(0).getDiscountAmount() + first.get(1).getDiscountAmount(), 0.001);
+        assertSame(first.get(0), second.get(0));
+        assertSame(first.get(1), second.get(1));
+    }
+
+    @Test
+    @DisplayName("Bundle allocations should add up to the discount")
+    void testAllocationsAddUp() {
+        Product a = new Product("a", ProductUnit.EACH);
+        Product b = new Product("b", ProductUnit.EACH);
+        Product c = new Product("c", ProductUnit.EACH);
+        catalog.addProduct(a, 0.33);
+        catalog.addProduct(b, 0.33);
+        catalog.addProduct(c, 0.35);
+        manager.addBundle(new ProductBundle("Trio", Arrays.asList(a, b, c), 10.0));
+
+        Map<Product, Double> cartProducts = new HashMap<>();
+        cartProducts.put(a, 4.0);
+        cartProducts.put(b, 4.0);
+        cartProducts.put(c, 4.0);
+
+        BundleDiscount discount = (BundleDiscount) manager.calculateBundleDiscounts(cartProducts, catalog).get(0);
+
+        assertEquals(1, discount.getApplications());
+        long allocated = discount.getAllocations().values().stream().mapToLong(Money::getMinorUnits).sum();
+        assertEquals(discount.getDiscountMinorUnits(), allocated);
+    }
+
+    @Test
+    @DisplayName("Bundle discounts should be reused until a member price or the bundle changes")
+    void testBundleDiscountCache() {
+        Product p1 = new Product("p1", ProductUnit.EACH);
+        Product p2 = new Product("p2", ProductUnit.EACH);
+        catalog.addProduct(p1, 10.00);
+        catalog.addProduct(p2, 20.00);
+        manager.addBundle(new ProductBundle("Test", Arrays.asList(p1, p2), 10.0));
+
+        Map<Product, Double> cartProducts = new HashMap<>();
+        cartProducts.put(p1, 1.0);
+        cartProducts.put(p2, 1.0);
+
+        Discount first = manager.calculateBundleDiscounts(cartProducts, catalog).get(0);
+        assertSame(first, manager.calculateBundleDiscounts(cartProducts, catalog).get(0));
+
+        catalog.addProduct(p2, 30.00);
+        Discount repriced = manager.calculateBundleDiscounts(cartProducts, catalog).get(0);
+        assertNotSame(first, repriced);
+        assertEquals(-4.00, repriced.getDiscountAmount(), 0.01);
+
+        ProductBundle redefined = new ProductBundle("Test", Arrays.asList(p1, p2), 50.0);
+        assertEquals(-20.00, manager.calculateBundleDiscount(redefined, cartProducts, catalog).getDiscountAmount(), 0.01);
+    }
+
     @Test
     @DisplayName("BundleManager should return empty list when no bundles applicable")
     void testNoApplicableBundles() {
@@ -0,0 +1,93 @@
+package dojo.supermarket.model.bundle;
+
+import dojo.supermarket.model.*;
+import dojo.supermarket.model.category.ConjuredCategory;
+import dojo.supermarket.model.category.PremiumCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MixAndMatchEngineTest {
+
+    private MixAndMatchEngine engine;
+    private SupermarketCatalog catalog;
+    private Product wine;
+    private Product cheese;
+    private Product truffle;
+    private Product potion;
+    private Product bread;
+
+    @BeforeEach
+    void setUp() {
+        engine = new MixAndMatchEngine();
+        catalog = new FakeCatalog();
+        wine = new Product("wine", ProductUnit.EACH, new PremiumCategory());
+        cheese = new Product("cheese", ProductUnit.EACH, new PremiumCategory());
+        truffle = new Product("truffle", ProductUnit.EACH, new PremiumCategory());
+        potion = new Product("potion", ProductUnit.EACH, new ConjuredCategory());
+        bread = new Product("bread", ProductUnit.EACH);
+        catalog.addProduct(wine, 10.00);
+        catalog.addProduct(cheese, 5.00);
+        catalog.addProduct(truffle, 20.00);
+        catalog.addProduct(potion, 3.00);
+        catalog.addProduct(bread, 1.00);
+    }
+
+    @Test
+    @DisplayName("Any N of a category should get a percentage off the most expensive complete sets")
+    void testPercentOff() {
+        engine.addRule(CategoryBundle.percentOff("Treat", "Premium", 3, 20.0));
+        Map<Product, Double> cart = new LinkedHashMap<>();
+        cart.put(wine, 2.0);
+        cart.put(cheese, 2.0);
+        cart.put(truffle, 1.0);
+        cart.put(bread, 5.0);
+
+        List<Discount> discounts = engine.calculateDiscounts(cart, catalog);
+
+        // Five Premium items make one set of three: truffle and both wines
+        assertEquals(1, discounts.size());
+        assertEquals(-8.00, discounts.get(0).getDiscountAmount(), 0.001);
+        assertEquals(truffle, discounts.get(0).getProduct());
+        assertEquals(DiscountKind.BUNDLE, discounts.get(0).getKind());
+    }
+
+    @Test
+    @DisplayName("Cheapest item of every complete set should be free")
+    void testCheapestFree() {
+        engine.addRule(CategoryBundle.cheapestFree("Magic", "Premium", 2));
+        Map<Product, Double> cart = new LinkedHashMap<>();
+        cart.put(truffle, 1.0);
+        cart.put(wine, 2.0);
+        cart.put(cheese, 2.0);
+
+        List<Discount> discounts = engine.calculateDiscounts(cart, catalog);
+
+        // Sets by price: (20, 10) (10, 5); the 5.00 left over has no partner
+        assertEquals(-15.00, discounts.get(0).getDiscountAmount(), 0.001);
+        assertEquals(cheese, discounts.get(0).getProduct());
+    }
+
+    @Test
+    @DisplayName("Rules should only see products of their own category")
+    void testCategoryScope() {
+        engine.addRule(CategoryBundle.cheapestFree("Magic", "Conjured", 2));
+        engine.addRule(CategoryBundle.percentOff("Treat", "Premium", 2, 50.0));
+        Map<Product, Double> cart = new LinkedHashMap<>();
+        cart.put(potion, 1.0);
+        cart.put(bread, 10.0);
+        cart.put(wine, 2.0);
+
+        List<Discount> discounts = engine.calculateDiscounts(cart, catalog);
+
+        assertEquals(1, discounts.size());
+        assertEquals(-10.00, discounts.get(0).getDiscountAmount(), 0.001);
+        assertFalse(engine.hasRulesFor(bread.getCategory()));
+    }
+}
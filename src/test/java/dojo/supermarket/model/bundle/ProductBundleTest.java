@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,6 +27,24 @@ class ProductBundleTest {
         assertEquals("Test Bundle bundle - 20.0% off", bundle.getDescription());
     }
 
+    @Test
+    @DisplayName("ProductBundle should reject a bundle without products")
+    void testEmptyBundleRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ProductBundle("Empty", List.of(), 10.0));
+        assertThrows(IllegalArgumentException.class, () -> new ProductBundle("Empty", Map.of(), 10.0));
+    }
+
+    @Test
+    @DisplayName("ProductBundle should show its discount against its first member")
+    void testTarget() {
+        Product p1 = new Product("p1", ProductUnit.EACH);
+        Product p2 = new Product("p2", ProductUnit.EACH);
+
+        ProductBundle bundle = new ProductBundle("Test", Arrays.asList(p2, p1, p2), 10.0);
+
+        assertEquals(p2, bundle.getTarget());
+    }
+
     @Test
     @DisplayName("Bundle should be applicable when all products present")
     void testBundleApplicability() {
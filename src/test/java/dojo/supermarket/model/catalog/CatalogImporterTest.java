@@ -0,0 +1,140 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ProductCategory;
+import dojo.supermarket.model.ProductRegistry;
+import dojo.supermarket.model.ProductUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogImporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Importer should load rows with units, categories and a header")
+    void testImportRows() throws IOException {
+        Path file = directory.resolve("prices.csv");
+        Files.writeString(file, "name,unit,category,price\r\n"
+            + "apples,KILO,Standard,1.99\r\n"
+            + "champagne,each,Premium,50.00\r\n"
+            + "wand, with sparkles,EACH,Conjured,10\r\n");
+        IndexedCatalog catalog = new IndexedCatalog();
+
+        int rows = new CatalogImporter(new ProductRegistry()).importInto(file, catalog);
+
+        assertEquals(3, rows);
+        assertEquals(1.99, catalog.getUnitPrice(new Product("apples", ProductUnit.KILO)));
+        Product champagne = catalog.getProduct(catalog.idOf(new Product("champagne", ProductUnit.EACH)));
+        assertEquals("Premium", champagne.getCategory().getCategoryName());
+        assertEquals(10.0, catalog.getUnitPrice(new Product("wand, with sparkles", ProductUnit.EACH)));
+    }
+
+    @Test
+    @DisplayName("Importer should not count the header and should parse units independently of the default locale")
+    void testHeaderAndLocale() throws IOException {
+        Path headerOnly = Files.writeString(directory.resolve("header.csv"), "name,unit,category,price\n");
+        Path lowerCaseUnits = Files.writeString(directory.resolve("units.csv"), "name,unit,category,price\n"
+            + "apples,kilo,Standard,1.99\n");
+        CatalogImporter importer = new CatalogImporter(new ProductRegistry());
+        IndexedCatalog catalog = new IndexedCatalog();
+
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            assertEquals(0, importer.importInto(headerOnly, catalog));
+            assertEquals(1, importer.importInto(lowerCaseUnits, catalog));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+        assertEquals(1.99, catalog.getUnitPrice(new Product("apples", ProductUnit.KILO)));
+    }
+
+    @Test
+    @DisplayName("Importer should parse large files in parallel chunks and keep file order")
+    void testImportLargeFile() throws IOException {
+        Path file = directory.resolve("large.csv");
+        int rowCount = 200_000;
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < rowCount; i++) {
+                writer.write("item" + i + ",EACH,Standard," + (i % 1000) + ".25\n");
+            }
+            writer.write("item7,EACH,Standard,0.01\n");
+        }
+        VersionedCatalog catalog = new VersionedCatalog();
+
+        int rows;
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            rows = new CatalogImporter(pool, new ProductRegistry()).importInto(file, catalog);
+        }
+
+        assertEquals(rowCount + 1, rows);
+        assertEquals(1, catalog.getVersion());
+        assertEquals(rowCount, catalog.snapshot().size());
+        assertEquals(123.25, catalog.getUnitPrice(new Product("item199123", ProductUnit.EACH)));
+        assertEquals(0.01, catalog.getUnitPrice(new Product("item7", ProductUnit.EACH)));
+    }
+
+    @Test
+    @DisplayName("Importer should resolve registered custom categories")
+    void testCustomCategory() throws IOException {
+        Path file = directory.resolve("organic.csv");
+        Files.writeString(file, "kale,KILO,Organic,4.50\n");
+        CatalogImporter importer = new CatalogImporter(new ProductRegistry());
+        importer.registerCategory(new ProductCategory() {
+            @Override
+            public String getCategoryName() {
+                return "Organic";
+            }
+
+            @Override
+            public double applyPriceAdjustment(double basePrice, double quantity) {
+                return basePrice * quantity;
+            }
+        });
+        IndexedCatalog catalog = new IndexedCatalog();
+
+        importer.importInto(file, catalog);
+
+        assertEquals("Organic", catalog.getProduct(0).getCategory().getCategoryName());
+    }
+
+    @Test
+    @DisplayName("Importer should reject malformed rows and unknown categories")
+    void testMalformedRows() throws IOException {
+        Path badPrice = directory.resolve("bad-price.csv");
+        Files.writeString(badPrice, "apples,KILO,Standard,1.99\npears,KILO,Standard,cheap\n");
+        Path badCategory = directory.resolve("bad-category.csv");
+        Files.writeString(badCategory, "apples,KILO,Luxury,1.99\n");
+        CatalogImporter importer = new CatalogImporter(new ProductRegistry());
+
+        assertThrows(IllegalArgumentException.class, () -> importer.importInto(badPrice, new IndexedCatalog()));
+        assertThrows(IllegalArgumentException.class, () -> importer.importInto(badCategory, new IndexedCatalog()));
+    }
+
+    @Test
+    @DisplayName("Importer should intern into the caller's registry")
+    void testSharedRegistry() throws IOException {
+        Path file = directory.resolve("prices.csv");
+        Files.writeString(file, "milk,EACH,Standard,0.99\n");
+        ProductRegistry registry = new ProductRegistry();
+        Product milk = registry.intern("milk", ProductUnit.EACH);
+        IndexedCatalog catalog = new IndexedCatalog();
+
+        new CatalogImporter(registry).importInto(file, catalog);
+
+        assertSame(milk, catalog.getProduct(catalog.idOf(milk)));
+        assertEquals(1, registry.size());
+    }
+}
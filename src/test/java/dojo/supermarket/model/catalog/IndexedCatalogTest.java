@@ -0,0 +1,85 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedCatalogTest {
+
+    private IndexedCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new IndexedCatalog();
+    }
+
+    @Test
+    @DisplayName("IndexedCatalog should assign dense ids in insertion order")
+    void testDenseIds() {
+        Product apples = new Product("apples", ProductUnit.KILO);
+        Product toothbrush = new Product("toothbrush", ProductUnit.EACH);
+
+        catalog.addProduct(apples, 1.99);
+        catalog.addProduct(toothbrush, 0.99);
+
+        assertEquals(0, catalog.idOf(apples));
+        assertEquals(1, catalog.idOf(toothbrush));
+        assertEquals(2, catalog.size());
+        assertEquals(0.99, catalog.getUnitPrice(1));
+        assertSame(toothbrush, catalog.getProduct(1));
+    }
+
+    @Test
+    @DisplayName("IndexedCatalog should find prices for equal product instances")
+    void testLookupByEqualProduct() {
+        catalog.addProduct(new Product("milk", ProductUnit.EACH), 1.20);
+
+        assertEquals(1.20, catalog.getUnitPrice(new Product("milk", ProductUnit.EACH)));
+    }
+
+    @Test
+    @DisplayName("IndexedCatalog should update the price of an existing product in place")
+    void testPriceUpdate() {
+        Product milk = new Product("milk", ProductUnit.EACH);
+        catalog.addProduct(milk, 1.20);
+        catalog.addProduct(milk, 1.10);
+
+        assertEquals(1, catalog.size());
+        assertEquals(1.10, catalog.getUnitPrice(milk));
+    }
+
+    @Test
+    @DisplayName("IndexedCatalog should grow beyond its initial capacity")
+    void testGrowth() {
+        for (int i = 0; i < 1000; i++) {
+            catalog.addProduct(new Product("item" + i, ProductUnit.EACH), i);
+        }
+
+        assertEquals(1000, catalog.size());
+        assertEquals(742.0, catalog.getUnitPrice(new Product("item742", ProductUnit.EACH)));
+    }
+
+    @Test
+    @DisplayName("IndexedCatalog should reject unknown products")
+    void testUnknownProduct() {
+        assertThrows(IllegalArgumentException.class,
+            () -> catalog.getUnitPrice(new Product("unknown", ProductUnit.EACH)));
+    }
+
+    @Test
+    @DisplayName("Teller should check out against an IndexedCatalog")
+    void testCheckoutWithIndexedCatalog() {
+        Product toothbrush = new Product("toothbrush", ProductUnit.EACH);
+        catalog.addProduct(toothbrush, 1.00);
+        Teller teller = new Teller(catalog);
+        teller.addSpecialOffer(SpecialOfferType.THREE_FOR_TWO, toothbrush, 0);
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItemQuantity(toothbrush, 3);
+
+        assertEquals(2.00, teller.checksOutArticlesFrom(cart).getTotalPrice(), 0.01);
+    }
+}
@@ -0,0 +1,155 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedPriceCatalogTest {
+
+    @TempDir
+    Path directory;
+
+    private final Product apples = new Product("apples", ProductUnit.KILO);
+    private final Product toothbrush = new Product("toothbrush", ProductUnit.EACH);
+
+    @Test
+    @DisplayName("MappedPriceCatalog should read prices written to a price file")
+    void testReadPrices() throws IOException {
+        Path file = writePrices(1.99, 0.99);
+
+        try (MappedPriceCatalog catalog = new MappedPriceCatalog(file)) {
+            assertEquals(2, catalog.size());
+            assertEquals(1.99, catalog.getUnitPrice(new Product("apples", ProductUnit.KILO)));
+            assertEquals(0.99, catalog.getUnitPrice(toothbrush));
+        }
+    }
+
+    @Test
+    @DisplayName("MappedPriceCatalog should distinguish products by unit and reject unknown products")
+    void testUnknownProduct() throws IOException {
+        Path file = writePrices(1.99, 0.99);
+
+        try (MappedPriceCatalog catalog = new MappedPriceCatalog(file)) {
+            assertThrows(IllegalArgumentException.class,
+                () -> catalog.getUnitPrice(new Product("apples", ProductUnit.EACH)));
+            assertThrows(IllegalArgumentException.class,
+                () -> catalog.getUnitPrice(new Product("pears", ProductUnit.KILO)));
+        }
+    }
+
+    @Test
+    @DisplayName("MappedPriceCatalog should be read-only")
+    void testReadOnly() throws IOException {
+        Path file = writePrices(1.99, 0.99);
+
+        try (MappedPriceCatalog catalog = new MappedPriceCatalog(file)) {
+            assertThrows(UnsupportedOperationException.class, () -> catalog.addProduct(apples, 2.00));
+        }
+    }
+
+    @Test
+    @DisplayName("Snapshots should keep their prices after a reload")
+    void testSnapshotSurvivesReload() throws IOException {
+        Path file = writePrices(1.99, 0.99);
+
+        try (MappedPriceCatalog catalog = new MappedPriceCatalog(file)) {
+            SupermarketCatalog snapshot = catalog.snapshot();
+            writePrices(2.49, 1.29);
+            catalog.reload();
+
+            assertEquals(1.99, snapshot.getUnitPrice(apples));
+            assertEquals(2.49, catalog.getUnitPrice(apples));
+            assertEquals(1, catalog.getVersion());
+        }
+    }
+
+    @Test
+    @DisplayName("Watcher should pick up a newly published price file")
+    void testWatcherReloads() throws Exception {
+        Path file = writePrices(1.99, 0.99);
+
+        try (MappedPriceCatalog catalog = new MappedPriceCatalog(file)) {
+            catalog.startWatching();
+            writePrices(2.49, 1.29);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (catalog.getUnitPrice(apples) != 2.49 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(2.49, catalog.getUnitPrice(apples));
+        }
+    }
+
+    @Test
+    @DisplayName("MappedPriceCatalog should reject files that are not price files")
+    void testInvalidFile() throws IOException {
+        Path file = directory.resolve("garbage.bin");
+        Files.write(file, new byte[64]);
+
+        assertThrows(IOException.class, () -> new MappedPriceCatalog(file));
+    }
+
+    @Test
+    @DisplayName("MappedPriceCatalog should reject a bad slot count and a truncated file")
+    void testCorruptFiles() throws IOException {
+        Path file = writePrices(1.99, 0.99);
+        byte[] valid = Files.readAllBytes(file);
+
+        byte[] badSlots = valid.clone();
+        ByteBuffer.wrap(badSlots).putInt(12, 24);
+        Files.write(file, badSlots);
+        assertThrows(IOException.class, () -> new MappedPriceCatalog(file));
+
+        Files.write(file, Arrays.copyOf(valid, valid.length - 3));
+        assertThrows(IOException.class, () -> new MappedPriceCatalog(file));
+    }
+
+    @Test
+    @DisplayName("Writing a price file should reject names too long for the record format")
+    void testLongNameRejected() {
+        Map<Product, Double> prices = Map.of(new Product("x".repeat(40_000), ProductUnit.EACH), 1.00);
+
+        assertThrows(IllegalArgumentException.class, () -> PriceFile.write(directory.resolve("long.bin"), prices));
+    }
+
+    @Test
+    @DisplayName("Watcher should count a failed reload and keep serving the previous prices")
+    void testWatcherReportsFailedReload() throws Exception {
+        Path file = writePrices(1.99, 0.99);
+
+        try (MappedPriceCatalog catalog = new MappedPriceCatalog(file)) {
+            catalog.startWatching();
+            Path corrupt = Files.write(directory.resolve("corrupt.bin"), new byte[64]);
+            Files.move(corrupt, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (catalog.getReloadFailureCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(catalog.getReloadFailureCount() > 0);
+            assertNotNull(catalog.getLastReloadFailure());
+            assertEquals(1.99, catalog.getUnitPrice(apples));
+        }
+    }
+
+    private Path writePrices(double applePrice, double toothbrushPrice) throws IOException {
+        Map<Product, Double> prices = new HashMap<>();
+        prices.put(apples, applePrice);
+        prices.put(toothbrush, toothbrushPrice);
+        Path file = directory.resolve("prices.bin");
+        PriceFile.write(file, prices);
+        return file;
+    }
+}
@@ -0,0 +1,83 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.*;
+import dojo.supermarket.model.bundle.ProductBundle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolvedPricesTest {
+
+    private CountingCatalog catalog;
+    private Product bread;
+    private Product butter;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new CountingCatalog();
+        bread = new Product("bread", ProductUnit.EACH);
+        butter = new Product("butter", ProductUnit.EACH);
+        catalog.addProduct(bread, 2.00);
+        catalog.addProduct(butter, 3.00);
+    }
+
+    @Test
+    @DisplayName("Resolve should fetch distinct products with one batch lookup")
+    void testResolveUsesOneBatch() {
+        ResolvedPrices prices = ResolvedPrices.resolve(catalog, Arrays.asList(bread, butter, bread));
+
+        assertEquals(2, prices.size());
+        assertEquals(2.00, prices.getUnitPrice(bread));
+        assertEquals(3.00, prices.getUnitPrice(butter));
+        assertEquals(1, catalog.batchLookups);
+        assertEquals(2, catalog.singleLookups);
+    }
+
+    @Test
+    @DisplayName("Resolved prices should fall back to the backing catalog for other products")
+    void testFallbackToSource() {
+        ResolvedPrices prices = ResolvedPrices.resolve(catalog, List.of(bread));
+
+        assertEquals(3.00, prices.getUnitPrice(butter));
+    }
+
+    @Test
+    @DisplayName("Checkout should price each product in the cart exactly once")
+    void testCheckoutLooksUpEachProductOnce() {
+        Teller teller = new Teller(catalog);
+        teller.addSpecialOffer(SpecialOfferType.TEN_PERCENT_DISCOUNT, bread, 10.0);
+        teller.getBundleManager().addBundle(new ProductBundle("Breakfast", Arrays.asList(bread, butter), 10.0));
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItemQuantity(bread, 1);
+        cart.addItemQuantity(butter, 1);
+        cart.addItemQuantity(bread, 1);
+
+        teller.checksOutArticlesFrom(cart);
+
+        assertEquals(1, catalog.batchLookups);
+        assertEquals(2, catalog.singleLookups);
+    }
+
+    private static class CountingCatalog extends IndexedCatalog {
+        int batchLookups;
+        int singleLookups;
+
+        @Override
+        public double getUnitPrice(Product product) {
+            singleLookups++;
+            return super.getUnitPrice(product);
+        }
+
+        @Override
+        public void getUnitPrices(List<Product> products, double[] out) {
+            batchLookups++;
+            super.getUnitPrices(products, out);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package dojo.supermarket.model.catalog;
+
+import dojo.supermarket.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionedCatalogTest {
+
+    private VersionedCatalog catalog;
+    private Product bread;
+    private Product butter;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new VersionedCatalog();
+        bread = new Product("bread", ProductUnit.EACH);
+        butter = new Product("butter", ProductUnit.EACH);
+    }
+
+    @Test
+    @DisplayName("A batch update should publish exactly one new version")
+    void testBatchPublishesOneVersion() {
+        CatalogSnapshot snapshot = catalog.update()
+            .setPrice(bread, 2.00)
+            .setPrice(butter, 3.00)
+            .publish();
+
+        assertEquals(1, snapshot.getVersion());
+        assertEquals(1, catalog.getVersion());
+        assertEquals(2, snapshot.size());
+        assertEquals(3.00, catalog.getUnitPrice(butter));
+    }
+
+    @Test
+    @DisplayName("A pinned snapshot should not see later updates")
+    void testSnapshotIsolation() {
+        catalog.addProduct(bread, 2.00);
+        SupermarketCatalog pinned = catalog.snapshot();
+
+        catalog.update().setPrice(bread, 2.50).setPrice(butter, 3.00).publish();
+
+        assertEquals(2.00, pinned.getUnitPrice(bread));
+        assertThrows(IllegalArgumentException.class, () -> pinned.getUnitPrice(butter));
+        assertEquals(2.50, catalog.getUnitPrice(bread));
+    }
+
+    @Test
+    @DisplayName("Snapshots should be read-only")
+    void testSnapshotReadOnly() {
+        CatalogSnapshot snapshot = catalog.snapshot();
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.addProduct(bread, 1.00));
+    }
+
+    @Test
+    @DisplayName("Readers should never observe half of a concurrent batch")
+    void testConcurrentBatchesAreAtomic() throws InterruptedException {
+        catalog.update().setPrice(bread, 0).setPrice(butter, 0).publish();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger tornReads = new AtomicInteger();
+
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= 2_000; i++) {
+                catalog.update().setPrice(bread, i).setPrice(butter, i).publish();
+            }
+            running.set(false);
+        });
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                SupermarketCatalog pinned = catalog.snapshot();
+                if (pinned.getUnitPrice(bread) != pinned.getUnitPrice(butter)) {
+                    tornReads.incrementAndGet();
+                }
+            }
+        });
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+
+        assertEquals(0, tornReads.get());
+        assertEquals(2_001, catalog.getVersion());
+    }
+
+    @Test
+    @DisplayName("Teller should check out against a versioned catalog")
+    void testCheckoutWithVersionedCatalog() {
+        catalog.update().setPrice(bread, 2.00).setPrice(butter, 3.00).publish();
+        Teller teller = new Teller(catalog);
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItemQuantity(bread, 2);
+        cart.addItemQuantity(butter, 1);
+
+        assertEquals(7.00, teller.checksOutArticlesFrom(cart).getTotalPrice(), 0.01);
+    }
+}
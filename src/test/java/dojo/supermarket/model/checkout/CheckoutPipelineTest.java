@@ -0,0 +1,76 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ProductUnit;
+import dojo.supermarket.model.Receipt;
+import dojo.supermarket.model.ShoppingCart;
+import dojo.supermarket.model.SpecialOfferType;
+import dojo.supermarket.model.Teller;
+import dojo.supermarket.model.catalog.IndexedCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckoutPipelineTest {
+
+    private IndexedCatalog catalog;
+    private Product toothbrush;
+    private Product apples;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new IndexedCatalog();
+        toothbrush = new Product("toothbrush", ProductUnit.EACH);
+        apples = new Product("apples", ProductUnit.KILO);
+        catalog.addProduct(toothbrush, 0.99);
+        catalog.addProduct(apples, 1.99);
+    }
+
+    @Test
+    @DisplayName("Context should merge repeated scans and keep a running subtotal")
+    void testContextAggregatesScans() {
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItemQuantity(toothbrush, 1);
+        cart.addItemQuantity(apples, 2);
+        cart.addItemQuantity(toothbrush, 2);
+
+        CheckoutContext context = new CheckoutContext(cart, catalog);
+        new PricingStage().apply(context);
+
+        assertEquals(3, context.getLineCount());
+        assertEquals(2, context.getProductCount());
+        assertEquals(toothbrush, context.getProduct(0));
+        assertEquals(3.0, context.getQuantity(0), 0.001);
+        assertEquals(0.99 + 3.98 + 1.98, context.getSubtotal().toDouble(), 0.001);
+        assertEquals(context.getReceipt().getTotal(), context.getSubtotal());
+    }
+
+    @Test
+    @DisplayName("Default pipeline should price items, offers, bundles, mix-and-match and loyalty in order")
+    void testDefaultPipelineOrder() {
+        Teller teller = new Teller(catalog);
+        assertEquals(5, teller.getPipeline().getStages().size());
+        assertInstanceOf(PricingStage.class, teller.getPipeline().getStages().get(0));
+        assertInstanceOf(LoyaltyStage.class, teller.getPipeline().getStages().get(4));
+    }
+
+    @Test
+    @DisplayName("A new stage should plug in without touching existing ones")
+    void testCustomStage() {
+        Teller teller = new Teller(catalog);
+        teller.addSpecialOffer(SpecialOfferType.THREE_FOR_TWO, toothbrush, 0);
+        CheckoutStage coupon = context -> context.addDiscount(new Discount(toothbrush, "Coupon", -0.50));
+        teller.setPipeline(teller.getPipeline().withBefore(LoyaltyStage.class, coupon));
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItemQuantity(toothbrush, 3);
+        Receipt receipt = teller.checksOutArticlesFrom(cart);
+
+        assertEquals(2, receipt.getDiscounts().size());
+        assertEquals("Coupon", receipt.getDiscounts().get(1).getDescription());
+        assertEquals(2.97 - 0.99 - 0.50, receipt.getTotalPrice(), 0.001);
+    }
+}
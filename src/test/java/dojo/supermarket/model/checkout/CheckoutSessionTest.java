@@ -0,0 +1,184 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ProductUnit;
+import dojo.supermarket.model.Receipt;
+import dojo.supermarket.model.ShoppingCart;
+import dojo.supermarket.model.SpecialOfferType;
+import dojo.supermarket.model.Teller;
+import dojo.supermarket.model.bundle.CategoryBundle;
+import dojo.supermarket.model.bundle.ProductBundle;
+import dojo.supermarket.model.catalog.IndexedCatalog;
+import dojo.supermarket.model.category.PremiumCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckoutSessionTest {
+
+    private Teller teller;
+    private Product toothbrush;
+    private Product toothpaste;
+    private Product apples;
+
+    @BeforeEach
+    void setUp() {
+        IndexedCatalog catalog = new IndexedCatalog();
+        toothbrush = new Product("toothbrush", ProductUnit.EACH);
+        toothpaste = new Product("toothpaste", ProductUnit.EACH);
+        apples = new Product("apples", ProductUnit.KILO);
+        catalog.addProduct(toothbrush, 0.99);
+        catalog.addProduct(toothpaste, 1.79);
+        catalog.addProduct(apples, 1.99);
+
+        teller = new Teller(catalog);
+        teller.addSpecialOffer(SpecialOfferType.THREE_FOR_TWO, toothbrush, 0);
+        teller.addSpecialOffer(SpecialOfferType.TEN_PERCENT_DISCOUNT, apples, 10.0);
+        teller.getBundleManager().addBundle(new ProductBundle("Dental", Arrays.asList(toothbrush, toothpaste), 10.0));
+        teller.enableLoyaltyProgram();
+    }
+
+    @Test
+    @DisplayName("Running total should follow every scan and void")
+    void testRunningTotal() {
+        CheckoutSession session = teller.openSession();
+        session.add(toothbrush, 1);
+        assertEquals(0.99, session.getTotal().toDouble(), 0.001);
+        session.add(toothbrush, 2);
+        assertEquals(1.98, session.getTotal().toDouble(), 0.001);
+        session.voidItem(toothbrush, 1);
+        assertEquals(1.98, session.getTotal().toDouble(), 0.001);
+        assertEquals(3, session.getLineCount());
+    }
+
+    @Test
+    @DisplayName("Voids should not remove more than was scanned")
+    void testOverVoidRejected() {
+        CheckoutSession session = teller.openSession();
+        session.add(toothbrush, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> session.voidItem(toothbrush, 3));
+        assertThrows(IllegalArgumentException.class, () -> session.voidItem(toothpaste, 1));
+        assertEquals(1.98, session.getTotal().toDouble(), 0.001);
+        assertEquals(1, session.getLineCount());
+
+        session.add(apples, 0.3);
+        session.voidItem(apples, 0.1);
+        session.voidItem(apples, 0.2);
+        assertEquals(1.98, session.getTotal().toDouble(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Final receipt should equal a full checkout of the same scans")
+    void testMatchesFullCheckout() {
+        List<ScanEvent> scans = List.of(
+            ScanEvent.add(apples, 2.5),
+            ScanEvent.add(toothbrush, 1),
+            ScanEvent.add(toothpaste, 1),
+            ScanEvent.add(toothbrush, 3),
+            ScanEvent.voidItem(toothbrush, 1),
+            ScanEvent.add(apples, 20));
+
+        CheckoutSession session = teller.openSession();
+        ShoppingCart cart = new ShoppingCart();
+        for (ScanEvent scan : scans) {
+            session.scan(scan);
+            cart.addItemQuantity(scan.getProduct(), scan.getSignedQuantity());
+            assertEquals(teller.checksOutArticlesFrom(cart).getTotal(), session.getTotal());
+        }
+
+        assertSameReceipt(teller.checksOutArticlesFrom(cart), session.getReceipt());
+    }
+
+    @Test
+    @DisplayName("Quantity bundles should follow adds and voids scan by scan")
+    void testQuantityBundleMatchesFullCheckout() {
+        Map<Product, Integer> set = new LinkedHashMap<>();
+        set.put(apples, 2);
+        set.put(toothpaste, 1);
+        teller.getBundleManager().addBundle(new ProductBundle("Picnic", set, 20.0));
+
+        CheckoutSession session = teller.openSession();
+        ShoppingCart cart = new ShoppingCart();
+        for (ScanEvent scan : List.of(
+                ScanEvent.add(toothpaste, 2),
+                ScanEvent.add(apples, 3),
+                ScanEvent.add(apples, 1),
+                ScanEvent.voidItem(toothpaste, 1),
+                ScanEvent.add(apples, 4))) {
+            session.scan(scan);
+            cart.addItemQuantity(scan.getProduct(), scan.getSignedQuantity());
+            assertEquals(teller.checksOutArticlesFrom(cart).getTotal(), session.getTotal());
+        }
+        assertSameReceipt(teller.checksOutArticlesFrom(cart), session.getReceipt());
+    }
+
+    @Test
+    @DisplayName("Mix-and-match rules should follow scans of their category")
+    void testMixAndMatchMatchesFullCheckout() {
+        Product wine = new Product("wine", ProductUnit.EACH, new PremiumCategory());
+        Product cheese = new Product("cheese", ProductUnit.EACH, new PremiumCategory());
+        IndexedCatalog catalog = new IndexedCatalog();
+        catalog.addProduct(wine, 9.99);
+        catalog.addProduct(cheese, 4.50);
+        catalog.addProduct(apples, 1.99);
+        Teller premiumTeller = new Teller(catalog);
+        premiumTeller.getMixAndMatchEngine().addRule(CategoryBundle.cheapestFree("Treat", "Premium", 3));
+        premiumTeller.getMixAndMatchEngine().addRule(CategoryBundle.percentOff("Duo", "Premium", 2, 10.0));
+
+        CheckoutSession session = premiumTeller.openSession();
+        ShoppingCart cart = new ShoppingCart();
+        for (ScanEvent scan : List.of(
+                ScanEvent.add(cheese, 1),
+                ScanEvent.add(apples, 1),
+                ScanEvent.add(wine, 2),
+                ScanEvent.add(cheese, 2),
+                ScanEvent.voidItem(wine, 1))) {
+            session.scan(scan);
+            cart.addItemQuantity(scan.getProduct(), scan.getSignedQuantity());
+            assertEquals(premiumTeller.checksOutArticlesFrom(cart).getTotal(), session.getTotal());
+        }
+        assertSameReceipt(premiumTeller.checksOutArticlesFrom(cart), session.getReceipt());
+    }
+
+    @Test
+    @DisplayName("Session should complete with the receipt when fed by a publisher")
+    void testFlowSubscriber() throws Exception {
+        CheckoutSession session = teller.openSession();
+        try (SubmissionPublisher<ScanEvent> lane = new SubmissionPublisher<>()) {
+            lane.subscribe(session);
+            lane.submit(ScanEvent.add(toothbrush, 3));
+            lane.submit(ScanEvent.add(toothpaste, 1));
+        }
+
+        Receipt receipt = session.getResult().get(5, TimeUnit.SECONDS);
+        assertEquals(4, receipt.getItems().size() + receipt.getDiscounts().size());
+        assertEquals(2.97 - 0.99 + 1.79 - 0.28, receipt.getTotalPrice(), 0.001);
+    }
+
+    private static void assertSameReceipt(Receipt expected, Receipt actual) {
+        assertEquals(expected.getItems().size(), actual.getItems().size());
+        for (int i = 0; i < expected.getItems().size(); i++) {
+            assertEquals(expected.getItems().get(i).getProduct(), actual.getItems().get(i).getProduct());
+            assertEquals(expected.getItems().get(i).getTotalAmount(), actual.getItems().get(i).getTotalAmount());
+        }
+        assertEquals(expected.getDiscounts().size(), actual.getDiscounts().size());
+        for (int i = 0; i < expected.getDiscounts().size(); i++) {
+            Discount e = expected.getDiscounts().get(i);
+            Discount a = actual.getDiscounts().get(i);
+            assertEquals(e.getDescription(), a.getDescription());
+            assertEquals(e.getAmount(), a.getAmount());
+        }
+        assertEquals(expected.getTotal(), actual.getTotal());
+    }
+}
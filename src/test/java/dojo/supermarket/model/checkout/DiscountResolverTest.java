@@ -0,0 +1,132 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ProductUnit;
+import dojo.supermarket.model.Receipt;
+import dojo.supermarket.model.ShoppingCart;
+import dojo.supermarket.model.SpecialOfferType;
+import dojo.supermarket.model.Teller;
+import dojo.supermarket.model.bundle.CategoryBundle;
+import dojo.supermarket.model.bundle.ProductBundle;
+import dojo.supermarket.model.catalog.IndexedCatalog;
+import dojo.supermarket.model.category.PremiumCategory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscountResolverTest {
+
+    private static final Product ANY = new Product("any", ProductUnit.EACH);
+
+    private static DiscountResolver.Candidate candidate(String name, long savings, int... products) {
+        return new DiscountResolver.Candidate(Discount.ofMinorUnits(ANY, name, -savings), products);
+    }
+
+    @Test
+    @DisplayName("Resolver should find the best non-overlapping set where greedy does not")
+    void testBeatsGreedy() {
+        List<DiscountResolver.Candidate> candidates = List.of(
+            candidate("big", 10, 0, 1, 2),
+            candidate("left", 6, 0, 1),
+            candidate("right", 6, 2, 3),
+            candidate("alone", 1, 4));
+
+        List<Discount> chosen = new DiscountResolver(Duration.ofSeconds(1)).resolve(candidates);
+
+        assertEquals(List.of("left", "right", "alone"), chosen.stream().map(Discount::getDescription).toList());
+    }
+
+    @Test
+    @DisplayName("Resolver should search a very large conflict group without overflowing the stack")
+    void testLargeGroup() {
+        // A chain where each candidate shares a product with the next, so all of them form one group
+        int size = 10_000;
+        List<DiscountResolver.Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            candidates.add(candidate("c" + i, 100, i, i + 1));
+        }
+
+        List<Discount> chosen = new DiscountResolver(Duration.ofMillis(200)).resolve(candidates);
+
+        assertEquals(size / 2, chosen.size());
+        int previous = -2;
+        for (Discount discount : chosen) {
+            int i = Integer.parseInt(discount.getDescription().substring(1));
+            assertTrue(i > previous + 1);
+            previous = i;
+        }
+    }
+
+    @Test
+    @DisplayName("Resolver should fall back to greedy when out of time")
+    void testTimeBudget() {
+        List<DiscountResolver.Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            candidates.add(candidate("c" + i, 100 + i % 7, i % 50, (i * 7 + 1) % 50));
+        }
+
+        List<Discount> chosen = new DiscountResolver(Duration.ZERO).resolve(candidates);
+
+        assertFalse(chosen.isEmpty());
+        boolean[] used = new boolean[50];
+        for (Discount discount : chosen) {
+            int i = Integer.parseInt(discount.getDescription().substring(1));
+            assertFalse(used[i % 50] || used[(i * 7 + 1) % 50]);
+            used[i % 50] = true;
+            used[(i * 7 + 1) % 50] = true;
+        }
+    }
+
+    @Test
+    @DisplayName("Best-discount pipeline should not stack an offer and a bundle on one product")
+    void testBestDiscountPipeline() {
+        IndexedCatalog catalog = new IndexedCatalog();
+        Product bread = new Product("bread", ProductUnit.EACH);
+        Product milk = new Product("milk", ProductUnit.EACH);
+        catalog.addProduct(bread, 2.00);
+        catalog.addProduct(milk, 3.00);
+        Teller teller = new Teller(catalog);
+        teller.addSpecialOffer(SpecialOfferType.TEN_PERCENT_DISCOUNT, bread, 10.0);
+        teller.getBundleManager().addBundle(new ProductBundle("Morning", Arrays.asList(bread, milk), 5.0));
+        teller.setPipeline(teller.bestDiscountPipeline(Duration.ofMillis(50)));
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItemQuantity(bread, 10);
+        cart.addItemQuantity(milk, 10);
+        Receipt receipt = teller.checksOutArticlesFrom(cart);
+
+        assertEquals(1, receipt.getDiscounts().size());
+        assertEquals("10.0% off", receipt.getDiscounts().get(0).getDescription());
+        assertEquals(48.00, receipt.getTotalPrice(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Best-discount pipeline should not stack an offer and a mix-and-match rule on one product")
+    void testBestDiscountPipelineWithMixAndMatch() {
+        IndexedCatalog catalog = new IndexedCatalog();
+        Product wine = new Product("wine", ProductUnit.EACH, new PremiumCategory());
+        Product cheese = new Product("cheese", ProductUnit.EACH, new PremiumCategory());
+        catalog.addProduct(wine, 10.00);
+        catalog.addProduct(cheese, 5.00);
+        Teller teller = new Teller(catalog);
+        teller.addSpecialOffer(SpecialOfferType.TEN_PERCENT_DISCOUNT, wine, 10.0);
+        teller.getMixAndMatchEngine().addRule(CategoryBundle.percentOff("Treat", "Premium", 2, 50.0));
+        teller.setPipeline(teller.bestDiscountPipeline(Duration.ofMillis(50)));
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItemQuantity(wine, 1);
+        cart.addItemQuantity(cheese, 1);
+        Receipt receipt = teller.checksOutArticlesFrom(cart);
+
+        assertEquals(1, receipt.getDiscounts().size());
+        assertTrue(receipt.getDiscounts().get(0).getDescription().startsWith("Treat"));
+        assertEquals(7.50, receipt.getTotalPrice(), 0.01);
+    }
+}
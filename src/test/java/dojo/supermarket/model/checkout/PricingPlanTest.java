@@ -0,0 +1,103 @@
+package dojo.supermarket.model.checkout;
+
+import dojo.supermarket.model.Offer;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ProductRegistry;
+import dojo.supermarket.model.ProductUnit;
+import dojo.supermarket.model.ShoppingCart;
+import dojo.supermarket.model.SpecialOfferType;
+import dojo.supermarket.model.Teller;
+import dojo.supermarket.model.bundle.ProductBundle;
+import dojo.supermarket.model.catalog.IndexedCatalog;
+import dojo.supermarket.model.offer.ThreeForTwoStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingPlanTest {
+
+    @Test
+    @DisplayName("Plan should resolve offer strategies and index bundle memberships per product")
+    void testCompile() {
+        ProductRegistry registry = new ProductRegistry();
+        Product toothbrush = registry.intern("toothbrush", ProductUnit.EACH);
+        Product toothpaste = registry.intern("toothpaste", ProductUnit.EACH);
+        Product apples = new Product("apples", ProductUnit.KILO);
+
+        PricingPlan plan = PricingPlan.compile(
+            List.of(new Offer(SpecialOfferType.THREE_FOR_TWO, toothbrush, 0)),
+            List.of(new ProductBundle("Dental", Arrays.asList(toothbrush, toothpaste), 10.0),
+                    new ProductBundle("Fruit", Arrays.asList(apples, toothpaste), 5.0)),
+            7);
+
+        assertEquals(7, plan.getRulesVersion());
+        assertInstanceOf(ThreeForTwoStrategy.class, plan.getEntry(toothbrush).getOffer().getStrategy());
+        assertNull(plan.getEntry(toothpaste));
+        assertArrayEquals(new int[] {0}, plan.getBundles().bundlesOf(toothbrush));
+        assertArrayEquals(new int[] {0, 1}, plan.getBundles().bundlesOf(toothpaste));
+        assertArrayEquals(new int[] {1}, plan.getBundles().bundlesOf(new Product("apples", ProductUnit.KILO)));
+        assertEquals(0, plan.getBundles().bundlesOf(registry.intern("milk", ProductUnit.EACH)).length);
+    }
+
+    @Test
+    @DisplayName("Products interned after the rules were written should still match them")
+    void testUninternedRuleMatchesInternedProduct() {
+        PricingPlan plan = PricingPlan.compile(
+            List.of(new Offer(SpecialOfferType.TEN_PERCENT_DISCOUNT, new Product("rice", ProductUnit.KILO), 10.0)),
+            List.of(), 1);
+
+        assertTrue(plan.getEntry(new ProductRegistry().intern("rice", ProductUnit.KILO)).hasOffer());
+    }
+
+    @Test
+    @DisplayName("Teller should recompile its plan only when rules change")
+    void testTellerRecompilesOnRuleChange() {
+        IndexedCatalog catalog = new IndexedCatalog();
+        Product rice = new Product("rice", ProductUnit.KILO);
+        catalog.addProduct(rice, 2.00);
+        Teller teller = new Teller(catalog);
+
+        teller.addSpecialOffer(SpecialOfferType.TEN_PERCENT_DISCOUNT, rice, 10.0);
+        PricingPlan plan = teller.getPricingPlan();
+        assertSame(plan, teller.getPricingPlan());
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItemQuantity(rice, 1);
+        assertEquals(1.80, teller.checksOutArticlesFrom(cart).getTotalPrice(), 0.01);
+
+        teller.removeSpecialOffer(rice);
+        assertNotSame(plan, teller.getPricingPlan());
+        assertEquals(2.00, teller.checksOutArticlesFrom(cart).getTotalPrice(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Scheduled offers should apply only inside their window and override always-on offers")
+    void testScheduledOffers() {
+        IndexedCatalog catalog = new IndexedCatalog();
+        Product rice = new Product("rice", ProductUnit.KILO);
+        catalog.addProduct(rice, 2.00);
+        Teller teller = new Teller(catalog);
+        teller.addSpecialOffer(SpecialOfferType.TEN_PERCENT_DISCOUNT, rice, 10.0);
+
+        Instant monday = Instant.parse("2026-03-02T00:00:00Z");
+        Instant happyHour = Instant.parse("2026-03-04T17:00:00Z");
+        teller.addScheduledOffer(SpecialOfferType.TEN_PERCENT_DISCOUNT, rice, 25.0, monday, monday.plus(Duration.ofDays(7)));
+        teller.addScheduledOffer(SpecialOfferType.TEN_PERCENT_DISCOUNT, rice, 50.0, happyHour, happyHour.plus(Duration.ofHours(2)));
+        PricingPlan plan = teller.getPricingPlan();
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItemQuantity(rice, 1);
+        assertEquals(1.80, teller.checksOutArticlesFrom(cart, monday.minusSeconds(1)).getTotalPrice(), 0.01);
+        assertEquals(1.50, teller.checksOutArticlesFrom(cart, monday).getTotalPrice(), 0.01);
+        assertEquals(1.00, teller.checksOutArticlesFrom(cart, happyHour.plus(Duration.ofMinutes(30))).getTotalPrice(), 0.01);
+        assertEquals(1.50, teller.checksOutArticlesFrom(cart, happyHour.plus(Duration.ofHours(2))).getTotalPrice(), 0.01);
+        assertEquals(1.80, teller.checksOutArticlesFrom(cart, monday.plus(Duration.ofDays(7))).getTotalPrice(), 0.01);
+        assertSame(plan, teller.getPricingPlan());
+    }
+}
@@ -0,0 +1,204 @@
+package dojo.supermarket.model.loyalty;
+
+import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.Money;
+import dojo.supermarket.model.Product;
+import dojo.supermarket.model.ProductUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerProfileCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CustomerProfileStore store = customerId -> {
+        loads.incrementAndGet();
+        return customerId < 0 ? null : new CustomerProfile(customerId, "Silver", customerId * 10);
+    };
+
+    @Test
+    @DisplayName("Cache should load a profile once and serve repeated lookups from memory")
+    void testHitsAvoidStore() {
+        CustomerProfileCache cache = new CustomerProfileCache(store, 100);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(70, cache.get(7).getPointsBalance());
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(4, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("A load that was in flight when its customer was invalidated should not be cached")
+    void testInvalidateDuringLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger tierChanges = new AtomicInteger();
+        CustomerProfileCache cache = new CustomerProfileCache(customerId -> {
+            if (tierChanges.get() == 0) {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new CustomerProfile(customerId, "Silver", 0);
+            }
+            return new CustomerProfile(customerId, "Gold", 0);
+        }, 100);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CustomerProfile> stale = executor.submit(() -> cache.get(5));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            tierChanges.incrementAndGet();
+            cache.invalidate(5);
+            release.countDown();
+
+            assertEquals("Silver", stale.get(10, TimeUnit.SECONDS).getTierName());
+            assertEquals(0, cache.size());
+            assertEquals("Gold", cache.get(5).getTierName());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Invalidation should wait for an insert that has already checked its load is current")
+    void testInvalidateWaitsForInsert() throws Exception {
+        CustomerProfileCache cache = new CustomerProfileCache(store, 100);
+        cache.get(5);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Holding the policy lock stands in for an insert between its check and its put
+            cache.policyLock.lock();
+            Future<?> invalidation;
+            try {
+                invalidation = executor.submit(() -> cache.invalidate(5));
+                assertThrows(TimeoutException.class, () -> invalidation.get(100, TimeUnit.MILLISECONDS));
+                assertEquals(1, cache.size());
+            } finally {
+                cache.policyLock.unlock();
+            }
+            invalidation.get(10, TimeUnit.SECONDS);
+
+            assertEquals(0, cache.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Cache should not cache unknown customers and should reload invalidated ones")
+    void testUnknownAndInvalidate() {
+        CustomerProfileCache cache = new CustomerProfileCache(store, 100);
+
+        assertNull(cache.get(-1));
+        assertNull(cache.get(-1));
+        assertEquals(0, cache.size());
+
+        cache.get(3);
+        cache.invalidate(3);
+        cache.get(3);
+        assertEquals(4, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("Cache should stay within its maximum size")
+    void testBounded() {
+        CustomerProfileCache cache = new CustomerProfileCache(store, 1_000);
+
+        for (long id = 0; id < 50_000; id++) {
+            cache.get(id);
+        }
+
+        assertTrue(cache.size() <= 1_000);
+    }
+
+    @Test
+    @DisplayName("Cache should keep frequently used profiles through a scan of one-off lookups")
+    void testScanResistance() {
+        CustomerProfileCache cache = new CustomerProfileCache(store, 1_000);
+        for (int round = 0; round < 20; round++) {
+            for (long id = 0; id < 500; id++) {
+                cache.get(id);
+            }
+        }
+
+        for (long id = 1_000_000; id < 1_100_000; id++) {
+            cache.get(id);
+        }
+
+        int before = loads.get();
+        for (long id = 0; id < 500; id++) {
+            cache.get(id);
+        }
+        assertTrue(loads.get() - before < 50, "hot profiles reloaded: " + (loads.get() - before));
+    }
+
+    @Test
+    @DisplayName("Cache should coalesce concurrent misses for one customer into a single load")
+    void testConcurrentMissesCoalesced() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CustomerProfileCache cache = new CustomerProfileCache(customerId -> {
+            loads.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new CustomerProfile(customerId, "Gold", 0);
+        }, 100);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CustomerProfile>> lookups = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> cache.get(99)));
+            }
+            while (loads.get() == 0) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<CustomerProfile> lookup : lookups) {
+                assertEquals("Gold", lookup.get().getTierName());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Manager should resolve a member's tier from their profile")
+    void testManagerUsesProfileTier() {
+        LoyaltyProgramManager manager = new LoyaltyProgramManager();
+        manager.setProfileCache(new CustomerProfileCache(
+            customerId -> new CustomerProfile(customerId, customerId == 1 ? "Gold" : "Silver", 0), 100));
+        Product product = new Product("test", ProductUnit.EACH);
+
+        assertEquals("Gold", manager.getApplicableTier(1, 5.00).getTierName());
+        assertEquals("Basic", manager.getApplicableTier(0, 5.00).getTierName());
+        // The basket alone earns more than the Silver tier the member holds
+        assertEquals("Gold", manager.getApplicableTier(2, 60.00).getTierName());
+
+        Discount discount = manager.calculateLoyaltyDiscount(Money.of(10.00), product, 1, Instant.now());
+        assertEquals(-1.00, discount.getDiscountAmount(), 0.001);
+        assertEquals(20, manager.calculatePoints(Money.of(10.00), 1, Instant.now()));
+    }
+}
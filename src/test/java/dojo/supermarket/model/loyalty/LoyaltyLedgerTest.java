@@ -0,0 +1,276 @@
+package dojo.supermarket.model.loyalty;
+
+import dojo.supermarket.model.*;
+import dojo.supermarket.model.checkout.CheckoutSession;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoyaltyLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Ledger should keep a running balance per customer")
+    void testBalances() throws IOException {
+        try (LoyaltyLedger ledger = new LoyaltyLedger(directory.resolve("points.log"))) {
+            ledger.post(42, 100).join();
+            ledger.post(42, -30).join();
+            ledger.post(7, 5).join();
+
+            assertEquals(70, ledger.getBalance(42));
+            assertEquals(5, ledger.getBalance(7));
+            assertEquals(0, ledger.getBalance(1));
+            assertEquals(2, ledger.getCustomerCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Ledger should rebuild balances from the log when reopened")
+    void testRecovery() throws IOException {
+        Path file = directory.resolve("points.log");
+        try (LoyaltyLedger ledger = new LoyaltyLedger(file)) {
+            for (int i = 0; i < 1_000; i++) {
+                ledger.post(i % 10, 3);
+            }
+        }
+
+        try (LoyaltyLedger ledger = new LoyaltyLedger(file)) {
+            assertEquals(300, ledger.getBalance(4));
+            ledger.post(4, 1).join();
+        }
+        try (LoyaltyLedger ledger = new LoyaltyLedger(file)) {
+            assertEquals(301, ledger.getBalance(4));
+            assertEquals(10, ledger.getCustomerCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Ledger should skip a record torn by a crash and keep the records after it")
+    void testTornRecordSkipped() throws IOException {
+        Path file = directory.resolve("points.log");
+        try (LoyaltyLedger ledger = new LoyaltyLedger(file)) {
+            ledger.post(1, 10).join();
+            ledger.post(2, 20).join();
+            ledger.post(3, 30).join();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // Corrupt the points of the second record without fixing its checksum
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, 999), 2L * LoyaltyLedger.RECORD_SIZE + 8);
+        }
+
+        try (LoyaltyLedger ledger = new LoyaltyLedger(file)) {
+            assertEquals(10, ledger.getBalance(1));
+            assertEquals(0, ledger.getBalance(2));
+            assertEquals(30, ledger.getBalance(3));
+        }
+    }
+
+    @Test
+    @DisplayName("Ledger should reject a file that is not a ledger")
+    void testRejectsForeignFile() throws IOException {
+        Path file = directory.resolve("points.log");
+        Files.writeString(file, "name,unit,category,price\n");
+
+        assertThrows(IOException.class, () -> new LoyaltyLedger(file));
+    }
+
+    @Test
+    @DisplayName("Ledger should accept concurrent postings from many lanes across segments")
+    void testConcurrentPostings() throws Exception {
+        int lanes = 8;
+        int postingsPerLane = LoyaltyLedger.SEGMENT_SIZE / LoyaltyLedger.RECORD_SIZE / 4;
+        Path file = directory.resolve("points.log");
+        ExecutorService executor = Executors.newFixedThreadPool(lanes);
+        try (LoyaltyLedger ledger = new LoyaltyLedger(file)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int lane = 0; lane < lanes; lane++) {
+                long customer = lane + 1;
+                results.add(executor.submit(() -> {
+                    List<CompletableFuture<Void>> postings = new ArrayList<>();
+                    for (int i = 0; i < postingsPerLane; i++) {
+                        postings.add(ledger.post(customer, 2));
+                    }
+                    postings.forEach(CompletableFuture::join);
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            for (int lane = 0; lane < lanes; lane++) {
+                assertEquals(2L * postingsPerLane, ledger.getBalance(lane + 1));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (LoyaltyLedger ledger = new LoyaltyLedger(file)) {
+            for (int lane = 0; lane < lanes; lane++) {
+                assertEquals(2L * postingsPerLane, ledger.getBalance(lane + 1));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Every posting accepted while the ledger closes should still complete")
+    void testPostingsRacingClose() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 50; round++) {
+                LoyaltyLedger ledger = new LoyaltyLedger(directory.resolve("race" + round + ".log"));
+                List<Future<List<CompletableFuture<Void>>>> lanes = new ArrayList<>();
+                for (int lane = 0; lane < 4; lane++) {
+                    lanes.add(executor.submit(() -> {
+                        List<CompletableFuture<Void>> accepted = new ArrayList<>();
+                        try {
+                            while (true) {
+                                accepted.add(ledger.post(1, 1));
+                            }
+                        } catch (IllegalStateException e) {
+                            return accepted;
+                        }
+                    }));
+                }
+                Thread.sleep(1);
+                ledger.close();
+
+                for (Future<List<CompletableFuture<Void>>> lane : lanes) {
+                    for (CompletableFuture<Void> posting : lane.get(10, TimeUnit.SECONDS)) {
+                        posting.get(10, TimeUnit.SECONDS);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Teller should credit points scaled by the tier multiplier to identified customers")
+    void testTellerCreditsPoints() throws IOException {
+        SupermarketCatalog catalog = new FakeCatalog();
+        Product wine = new Product("wine", ProductUnit.EACH);
+        catalog.addProduct(wine, 30.00);
+        Teller teller = new Teller(catalog);
+
+        try (LoyaltyLedger ledger = new LoyaltyLedger(directory.resolve("points.log"))) {
+            teller.setLoyaltyLedger(ledger);
+
+            ShoppingCart member = new ShoppingCart();
+            member.setCustomerId(1001);
+            member.addItemQuantity(wine, 1);
+            teller.checksOutArticlesFrom(member);
+
+            ShoppingCart anonymous = new ShoppingCart();
+            anonymous.addItemQuantity(wine, 2);
+            teller.checksOutArticlesFrom(anonymous);
+
+            ShoppingCart big = new ShoppingCart();
+            big.setCustomerId(1002);
+            big.addItemQuantity(wine, 2);
+            teller.checkOutAll(List.of(big));
+
+            // 30.00 at Silver earns 1.5x, 60.00 at Gold earns 2x
+            assertEquals(45, ledger.getBalance(1001));
+            assertEquals(120, ledger.getBalance(1002));
+            assertEquals(2, ledger.getCustomerCount());
+        }
+    }
+
+    @Test
+    @DisplayName("A batch should earn points on the spend it was priced on, and re-pricing should credit nothing")
+    void testBatchPointsAndRepricing() throws IOException {
+        SupermarketCatalog catalog = new FakeCatalog();
+        Product wine = new Product("wine", ProductUnit.EACH);
+        catalog.addProduct(wine, 30.00);
+        Teller teller = new Teller(catalog);
+        SpendTracker tracker = new SpendTracker(ZoneOffset.UTC, 100);
+        teller.getLoyaltyManager().setSpendTracker(tracker);
+
+        try (LoyaltyLedger ledger = new LoyaltyLedger(directory.resolve("points.log"))) {
+            teller.setLoyaltyLedger(ledger);
+            List<ShoppingCart> carts = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                ShoppingCart cart = new ShoppingCart();
+                cart.setCustomerId(4001);
+                cart.addItemQuantity(wine, 1);
+                carts.add(cart);
+            }
+
+            teller.checkOutAll(carts);
+            // Both carts were priced at Silver on the pre-batch spend, so both earn 1.5x
+            assertEquals(90, ledger.getBalance(4001));
+            assertEquals(Money.of(60.00), tracker.getRollingSpend(4001, Instant.now()));
+
+            List<Receipt> repriced = teller.repriceAll(carts);
+            assertEquals(2, repriced.size());
+            assertEquals(90, ledger.getBalance(4001));
+            assertEquals(Money.of(60.00), tracker.getRollingSpend(4001, Instant.now()));
+        }
+    }
+
+    @Test
+    @DisplayName("Points should be earned at the tier the purchase was priced at, not the tier of the discounted total")
+    void testPointsAtPricedTier() throws IOException {
+        SupermarketCatalog catalog = new FakeCatalog();
+        Product wine = new Product("wine", ProductUnit.EACH);
+        catalog.addProduct(wine, 55.00);
+        Teller teller = new Teller(catalog);
+        teller.enableLoyaltyProgram();
+
+        try (LoyaltyLedger ledger = new LoyaltyLedger(directory.resolve("points.log"))) {
+            teller.setLoyaltyLedger(ledger);
+            ShoppingCart cart = new ShoppingCart();
+            cart.setCustomerId(2001);
+            cart.addItemQuantity(wine, 1);
+
+            Receipt receipt = teller.checksOutArticlesFrom(cart);
+
+            // 55.00 qualifies for Gold, whose 10% off leaves 49.50 to pay, earning 2x
+            assertEquals(Money.of(49.50), receipt.getTotal());
+            assertEquals(99, ledger.getBalance(2001));
+        }
+    }
+
+    @Test
+    @DisplayName("Finishing a checkout session should credit the identified customer's points")
+    void testSessionCreditsPoints() throws IOException {
+        SupermarketCatalog catalog = new FakeCatalog();
+        Product wine = new Product("wine", ProductUnit.EACH);
+        catalog.addProduct(wine, 30.00);
+        Teller teller = new Teller(catalog);
+
+        try (LoyaltyLedger ledger = new LoyaltyLedger(directory.resolve("points.log"))) {
+            teller.setLoyaltyLedger(ledger);
+            CheckoutSession session = teller.openSession();
+            session.add(wine, 1);
+            session.identifyCustomer(3001);
+
+            Receipt receipt = session.finish();
+
+            assertSame(receipt, session.getResult().join());
+            assertSame(receipt, session.finish());
+            assertEquals(45, ledger.getBalance(3001));
+            assertThrows(IllegalStateException.class, () -> session.add(wine, 1));
+        }
+    }
+}
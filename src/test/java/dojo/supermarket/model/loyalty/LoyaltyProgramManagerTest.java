@@ -1,6 +1,7 @@
 package dojo.supermarket.model.loyalty;
 
 import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.DiscountDescriptions;
 import dojo.supermarket.model.Product;
 import dojo.supermarket.model.ProductUnit;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +19,20 @@ class LoyaltyProgramManagerTest {
         manager = new LoyaltyProgramManager();
     }
 
+    @Test
+    @DisplayName("Managers should share one description template per tier")
+    void testDescriptionsRegisteredOnce() {
+        new LoyaltyProgramManager();
+        int before = DiscountDescriptions.size();
+        for (int i = 0; i < 100; i++) {
+            new LoyaltyProgramManager();
+        }
+
+        assertEquals(before, DiscountDescriptions.size());
+        Discount gold = new LoyaltyProgramManager().calculateLoyaltyDiscount(60.00, new Product("test", ProductUnit.EACH));
+        assertEquals("Gold Member - 10.0% off", gold.getDescription());
+    }
+
     @Test
     @DisplayName("Manager should return Basic tier for low amounts")
     void testBasicTierForLowAmount() {
@@ -94,5 +109,59 @@ class LoyaltyProgramManagerTest {
         assertEquals("Silver", manager.getApplicableTier(49.99).getTierName());
         assertEquals("Gold", manager.getApplicableTier(50.00).getTierName());
     }
-}
 
+    @Test
+    @DisplayName("Manager should choose an added tier above the default tiers")
+    void testAddedTierIsChosen() {
+        manager.addLoyaltyProgram(tier("Platinum", 100.0, 15.0));
+
+        assertEquals("Gold", manager.getApplicableTier(99.99).getTierName());
+        assertEquals("Platinum", manager.getApplicableTier(100.00).getTierName());
+    }
+
+    @Test
+    @DisplayName("Manager should rank many tiers by qualifying amount whatever the order they are added in")
+    void testManyTiersRankedByThreshold() {
+        for (int i = 30; i >= 1; i--) {
+            manager.addLoyaltyProgram(tier("Regional " + i, 100.0 * i, 10.0 + i / 10.0));
+        }
+
+        assertEquals("Gold", manager.getApplicableTier(99.00).getTierName());
+        assertEquals("Regional 1", manager.getApplicableTier(150.00).getTierName());
+        assertEquals("Regional 17", manager.getApplicableTier(1_700.00).getTierName());
+        assertEquals("Regional 30", manager.getApplicableTier(1_000_000.00).getTierName());
+    }
+
+    @Test
+    @DisplayName("Manager should prefer the tier added last when qualifying amounts tie")
+    void testLaterTierWinsTie() {
+        manager.addLoyaltyProgram(tier("Regional Gold", 50.0, 12.0));
+
+        assertEquals("Regional Gold", manager.getApplicableTier(50.00).getTierName());
+        assertEquals("Silver", manager.getApplicableTier(49.99).getTierName());
+    }
+
+    private static LoyaltyProgram tier(String name, double qualifyingAmount, double discountPercentage) {
+        return new LoyaltyProgram() {
+            @Override
+            public String getTierName() {
+                return name;
+            }
+
+            @Override
+            public double getDiscountPercentage() {
+                return discountPercentage;
+            }
+
+            @Override
+            public double getPointsMultiplier() {
+                return 1.0;
+            }
+
+            @Override
+            public double getQualifyingAmount() {
+                return qualifyingAmount;
+            }
+        };
+    }
+}
@@ -0,0 +1,171 @@
+package dojo.supermarket.model.loyalty;
+
+import dojo.supermarket.model.*;
+import dojo.supermarket.model.checkout.CheckoutSession;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpendTrackerTest {
+
+    private static final int DAY = 20_000;
+
+    @Test
+    @DisplayName("Tracker should sum spend over the last 90 days only")
+    void testRollingWindow() {
+        SpendTracker tracker = new SpendTracker(ZoneOffset.UTC, 100);
+
+        tracker.record(7, 1_000, DAY);
+        tracker.record(7, 500, DAY + 30);
+        tracker.record(7, -200, DAY + 30);
+
+        assertEquals(1_300, tracker.getRollingSpend(7, DAY + 30));
+        assertEquals(1_300, tracker.getRollingSpend(7, DAY + 89));
+        assertEquals(300, tracker.getRollingSpend(7, DAY + 90));
+        assertEquals(300, tracker.getRollingSpend(7, DAY + 119));
+        assertEquals(0, tracker.getRollingSpend(7, DAY + 120));
+        assertEquals(0, tracker.getRollingSpend(8, DAY));
+    }
+
+    @Test
+    @DisplayName("Tracker should drop purchases dated before the window of later ones and reject anonymous customers")
+    void testLatePurchasesAndAnonymous() {
+        SpendTracker tracker = new SpendTracker(ZoneOffset.UTC, 100);
+
+        tracker.record(7, 1_000, DAY + 100);
+        tracker.record(7, 400, DAY + 50);
+        tracker.record(7, 999, DAY);
+
+        assertEquals(1_400, tracker.getRollingSpend(7, DAY + 100));
+        // Earlier windows are not kept, so a past day reads as of the latest purchase
+        assertEquals(1_400, tracker.getRollingSpend(7, DAY + 50));
+        assertThrows(IllegalArgumentException.class, () -> tracker.record(ShoppingCart.ANONYMOUS, 100, DAY));
+    }
+
+    @Test
+    @DisplayName("Tracker should saturate a day's spend instead of failing on amounts beyond its range")
+    void testSaturatesDay() {
+        SpendTracker tracker = new SpendTracker(ZoneOffset.UTC, 100);
+
+        tracker.record(7, 3_000_000_000L, DAY);
+        tracker.record(7, 3_000_000_000L, DAY);
+        tracker.record(7, 1_000, DAY + 1);
+
+        assertEquals(Integer.MAX_VALUE + 1_000L, tracker.getRollingSpend(7, DAY + 1));
+        assertEquals(1_000, tracker.getRollingSpend(7, DAY + 90));
+    }
+
+    @Test
+    @DisplayName("Tracker should keep every customer's spend as its tables grow")
+    void testManyCustomers() {
+        SpendTracker tracker = new SpendTracker(ZoneOffset.UTC, 0);
+
+        for (long customer = 1; customer <= 100_000; customer++) {
+            tracker.record(customer, customer, DAY + (int) (customer % 90));
+        }
+
+        assertEquals(100_000, tracker.size());
+        for (long customer = 1; customer <= 100_000; customer += 997) {
+            assertEquals(customer, tracker.getRollingSpend(customer, DAY + 89));
+        }
+    }
+
+    @Test
+    @DisplayName("Tracker should accept concurrent purchases from many lanes")
+    void testConcurrentRecording() throws Exception {
+        SpendTracker tracker = new SpendTracker(ZoneOffset.UTC, 1_000);
+        ExecutorService lanes = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int lane = 0; lane < 8; lane++) {
+                results.add(lanes.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        tracker.record(1 + i % 500, 10, DAY + i % 60);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            lanes.shutdown();
+        }
+
+        for (long customer = 1; customer <= 500; customer++) {
+            assertEquals(8 * 20 * 10, tracker.getRollingSpend(customer, DAY + 59));
+        }
+    }
+
+    @Test
+    @DisplayName("Teller should qualify members for tiers on their rolling spend")
+    void testTierFromRollingSpend() {
+        SupermarketCatalog catalog = new FakeCatalog();
+        Product wine = new Product("wine", ProductUnit.EACH);
+        catalog.addProduct(wine, 15.00);
+        Teller teller = new Teller(catalog);
+        teller.enableLoyaltyProgram();
+        teller.getLoyaltyManager().setSpendTracker(new SpendTracker(ZoneOffset.UTC, 100));
+        Instant monday = Instant.parse("2026-03-02T10:00:00Z");
+
+        // 15.00, then 30.00 rolling: Basic, then Silver
+        assertEquals(15.00, teller.checksOutArticlesFrom(memberCart(wine), monday).getTotalPrice(), 0.001);
+        assertEquals(14.25, teller.checksOutArticlesFrom(memberCart(wine), monday).getTotalPrice(), 0.001);
+        // 29.25 + 15.00 + 15.00 rolling reaches Gold
+        teller.checksOutArticlesFrom(memberCart(wine), monday);
+        assertEquals(13.50, teller.checksOutArticlesFrom(memberCart(wine), monday).getTotalPrice(), 0.001);
+        // Once the window has passed, the member is back to what the basket alone earns
+        assertEquals(15.00, teller.checksOutArticlesFrom(memberCart(wine), monday.plus(Duration.ofDays(90))).getTotalPrice(), 0.001);
+
+        ShoppingCart anonymous = new ShoppingCart();
+        anonymous.addItemQuantity(wine, 1);
+        assertEquals(15.00, teller.checksOutArticlesFrom(anonymous, monday).getTotalPrice(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Finishing a checkout session should add the purchase to the member's rolling spend")
+    void testSessionRecordsSpend() {
+        SupermarketCatalog catalog = new FakeCatalog();
+        Product wine = new Product("wine", ProductUnit.EACH);
+        catalog.addProduct(wine, 15.00);
+        Teller teller = new Teller(catalog);
+        teller.enableLoyaltyProgram();
+        SpendTracker tracker = new SpendTracker(ZoneOffset.UTC, 100);
+        teller.getLoyaltyManager().setSpendTracker(tracker);
+        Instant monday = Instant.parse("2026-03-02T10:00:00Z");
+
+        CheckoutSession first = teller.openSession(monday);
+        first.identifyCustomer(42);
+        first.add(wine, 1);
+        assertEquals(Money.of(15.00), first.finish().getTotal());
+        assertEquals(Money.of(15.00), tracker.getRollingSpend(42, monday));
+
+        // 15.00 rolling plus this basket reaches Silver
+        CheckoutSession second = teller.openSession(monday);
+        second.identifyCustomer(42);
+        second.add(wine, 1);
+        assertEquals(Money.of(14.25), second.finish().getTotal());
+        assertEquals(Money.of(29.25), tracker.getRollingSpend(42, monday));
+
+        CheckoutSession anonymous = teller.openSession(monday);
+        anonymous.add(wine, 1);
+        anonymous.finish();
+        assertEquals(1, tracker.size());
+    }
+
+    private static ShoppingCart memberCart(Product product) {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setCustomerId(42);
+        cart.addItemQuantity(product, 1);
+        return cart;
+    }
+}
@@ -1,8 +1,11 @@
 package dojo.supermarket.model.offer;
 
 import dojo.supermarket.model.Discount;
+import dojo.supermarket.model.DiscountDescriptions;
+import dojo.supermarket.model.DiscountKind;
 import dojo.supermarket.model.Product;
 import dojo.supermarket.model.ProductUnit;
+import dojo.supermarket.model.Receipt;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -22,6 +25,19 @@ class OfferStrategyTest {
 		assertEquals("3 for 2", strategy.getDescription());
 	}
 
+	@Test
+	@DisplayName("Registering a description that is already registered should return its id")
+	void testDescriptionsDeduplicated() {
+		Discount discount = new ThreeForTwoStrategy().calculateDiscount(new Product("test", ProductUnit.EACH), 3, 1.00, 0);
+		int registered = DiscountDescriptions.size();
+
+		int id = DiscountDescriptions.register(DiscountKind.OFFER, "3 for 2");
+
+		assertEquals(registered, DiscountDescriptions.size());
+		assertEquals(discount.getDescription(), DiscountDescriptions.format(id, 0));
+		assertEquals(DiscountKind.OFFER, DiscountDescriptions.kindOf(id));
+	}
+
 	@Test
 	@DisplayName("ThreeForTwoStrategy should calculate correct discount for 6 items")
 	void testThreeForTwoWithSixItems() {
@@ -109,4 +125,21 @@ class OfferStrategyTest {
 		assertNotNull(discount);
 		assertEquals(-1.00, discount.getDiscountAmount(), 0.01);
 	}
+
+	@Test
+	@DisplayName("Strategies should emit the same discount into a receipt as they calculate")
+	void testEmitMatchesCalculate() {
+		TwoForAmountStrategy strategy = new TwoForAmountStrategy();
+		Product product = new Product("test", ProductUnit.EACH);
+		Receipt receipt = new Receipt();
+
+		strategy.emitDiscount(product, 3, 1.00, 1.50, receipt);
+		strategy.emitDiscount(product, 1, 1.00, 1.50, receipt);
+
+		Discount calculated = strategy.calculateDiscount(product, 3, 1.00, 1.50);
+		assertEquals(1, receipt.getDiscounts().size());
+		Discount emitted = receipt.getDiscounts().get(0);
+		assertEquals(calculated.getDescription(), emitted.getDescription());
+		assertEquals(calculated.getDiscountAmount(), emitted.getDiscountAmount(), 0.001);
+	}
 }
@@ -0,0 +1,148 @@
+package dojo.supermarket.server;
+
+import dojo.supermarket.model.*;
+import dojo.supermarket.model.catalog.IndexedCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckoutServerTest {
+
+    private CheckoutServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ProductRegistry registry = new ProductRegistry();
+        IndexedCatalog catalog = new IndexedCatalog();
+        Product toothbrush = registry.intern("toothbrush", ProductUnit.EACH);
+        Product apples = registry.intern("apples", ProductUnit.KILO);
+        catalog.addProduct(toothbrush, 0.99);
+        catalog.addProduct(apples, 1.99);
+        Teller teller = new Teller(catalog);
+        teller.addSpecialOffer(SpecialOfferType.THREE_FOR_TWO, toothbrush, 0);
+
+        server = new CheckoutServer(teller, registry, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1_000, 1_024);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Server should price a posted cart and return the receipt")
+    void testCheckout() throws Exception {
+        HttpResponse<String> response = post("toothbrush,EACH,3\napples,kilo,2.5\n");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("3 for 2\ttoothbrush\t-0.99"));
+        assertTrue(response.body().endsWith("Total\t\t6.95\n"));
+    }
+
+    @Test
+    @DisplayName("Server should reject unknown products and malformed lines")
+    void testBadRequests() throws Exception {
+        assertEquals(400, post("caviar,EACH,1\n").statusCode());
+        assertEquals(400, post("toothbrush,3\n").statusCode());
+        assertEquals(400, post("toothbrush,EACH,lots\n").statusCode());
+    }
+
+    @Test
+    @DisplayName("Server should reject oversized payloads")
+    void testBodyLimit() throws Exception {
+        assertEquals(413, post("toothbrush,EACH,1\n".repeat(100)).statusCode());
+    }
+
+    @Test
+    @DisplayName("Server should answer 500 when pricing fails")
+    void testPricingFailure() throws Exception {
+        ProductRegistry registry = new ProductRegistry();
+        registry.intern("toothbrush", ProductUnit.EACH);
+        SupermarketCatalog unavailable = new SupermarketCatalog() {
+            @Override
+            public void addProduct(Product product, double price) {
+            }
+
+            @Override
+            public double getUnitPrice(Product product) {
+                throw new IllegalStateException("Price service unavailable");
+            }
+        };
+        try (CheckoutServer failing = new CheckoutServer(new Teller(unavailable), registry,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            failing.start();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + failing.getPort() + "/checkout"))
+                .timeout(Duration.ofSeconds(10))
+                .POST(HttpRequest.BodyPublishers.ofString("toothbrush,EACH,1\n"))
+                .build();
+
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(500, response.statusCode());
+            assertEquals("Checkout failed\n", response.body());
+        }
+    }
+
+    @Test
+    @DisplayName("Server should handle concurrent requests and report latency")
+    void testConcurrentRequestsAndMetrics() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            responses.add(client.sendAsync(request("toothbrush,EACH,1\n"), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.get().statusCode());
+        }
+
+        HttpResponse<String> metrics = client.send(
+            HttpRequest.newBuilder(uri("/metrics")).GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        assertTrue(metrics.body().contains("requests 200\n"));
+        assertEquals(200, server.getLatency().getCount());
+        assertTrue(server.getLatency().getPercentileMicros(99) <= server.getLatency().getMaxMicros());
+    }
+
+    @Test
+    @DisplayName("Server should measure requests it turns away when at capacity")
+    void testRejectedRequestsMeasured() throws Exception {
+        try (CheckoutServer full = new CheckoutServer(new Teller(new IndexedCatalog()), new ProductRegistry(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0, 1_024)) {
+            full.start();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + full.getPort() + "/checkout"))
+                .POST(HttpRequest.BodyPublishers.ofString("toothbrush,EACH,1\n"))
+                .build();
+
+            assertEquals(503, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+            assertEquals(1, full.getLatency().getCount());
+        }
+    }
+
+    private HttpResponse<String> post(String cart) throws Exception {
+        return client.send(request(cart), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest request(String cart) {
+        return HttpRequest.newBuilder(uri("/checkout")).POST(HttpRequest.BodyPublishers.ofString(cart)).build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}